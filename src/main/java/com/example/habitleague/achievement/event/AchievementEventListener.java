@@ -18,7 +18,7 @@ public class AchievementEventListener {
      * Maneja el evento de logro desbloqueado
      */
     @EventListener
-    @Async
+    @Async("notificationExecutor")
     public void handleAchievementUnlocked(AchievementUnlockedEvent event) {
         log.info("🏆 Usuario {} desbloqueó logro: {} [{}]", 
             event.getUserId(), 
@@ -41,6 +41,16 @@ public class AchievementEventListener {
         }
     }
     
+    /**
+     * Maneja los logros desbloqueados en una evaluación por lotes
+     */
+    @EventListener
+    @Async("notificationExecutor")
+    public void handleAchievementsUnlocked(AchievementsUnlockedEvent event) {
+        log.info("🏆 {} logros desbloqueados en lote", event.getUnlocked().size());
+        event.getUnlocked().forEach(this::handleAchievementUnlocked);
+    }
+    
     /**
      * Registra el logro desbloqueado en el log para auditoría
      */
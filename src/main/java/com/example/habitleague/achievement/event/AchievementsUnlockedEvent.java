@@ -0,0 +1,16 @@
+package com.example.habitleague.achievement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Evento agregado con todos los logros desbloqueados en una evaluación por lotes
+ */
+@Getter
+@AllArgsConstructor
+public class AchievementsUnlockedEvent {
+
+    private final List<AchievementUnlockedEvent> unlocked;
+}
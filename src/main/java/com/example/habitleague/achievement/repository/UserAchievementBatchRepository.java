@@ -0,0 +1,62 @@
+package com.example.habitleague.achievement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Inserción masiva de logros desbloqueados con batching JDBC. UserAchievement usa ids
+ * IDENTITY, así que Hibernate no puede agrupar sus INSERT; aquí van en lotes de sentencias
+ * y los duplicados (desbloqueados en paralelo en otro nodo) se ignoran.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserAchievementBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO user_achievements (user_id, achievement_id, challenge_id, context_info, unlocked_at) " +
+        "VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserta las filas que no existan todavía
+     *
+     * @return para cada fila, si se insertó
+     */
+    public boolean[] insertIgnoringDuplicates(List<NewUnlock> unlocks) {
+        boolean[] inserted = new boolean[unlocks.size()];
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, unlocks, BATCH_SIZE, (ps, unlock) -> {
+            ps.setLong(1, unlock.userId());
+            ps.setLong(2, unlock.achievementId());
+            if (unlock.challengeId() != null) {
+                ps.setLong(3, unlock.challengeId());
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setString(4, unlock.contextInfo());
+            ps.setTimestamp(5, Timestamp.valueOf(unlock.unlockedAt()));
+        });
+
+        int row = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Algunos drivers no informan filas por sentencia; se asume insertada
+                inserted[row++] = count > 0 || count == Statement.SUCCESS_NO_INFO;
+            }
+        }
+        return inserted;
+    }
+
+    public record NewUnlock(Long userId, Long achievementId, Long challengeId, String contextInfo,
+                            LocalDateTime unlockedAt) {
+    }
+}
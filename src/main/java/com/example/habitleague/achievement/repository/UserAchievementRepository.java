@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -68,4 +69,18 @@ public interface UserAchievementRepository extends JpaRepository<UserAchievement
            "JOIN FETCH ua.achievement " +
            "WHERE ua.challengeId = :challengeId")
     List<UserAchievement> findByChallengeId(@Param("challengeId") Long challengeId);
+
+    /**
+     * Tipos de logro desbloqueados por cada usuario indicado
+     */
+    @Query("SELECT ua.user.id AS userId, a.type AS type " +
+           "FROM UserAchievement ua " +
+           "JOIN ua.achievement a " +
+           "WHERE ua.user.id IN :userIds")
+    List<UnlockedTypeView> findUnlockedTypesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    interface UnlockedTypeView {
+        Long getUserId();
+        AchievementType getType();
+    }
 } 
\ No newline at end of file
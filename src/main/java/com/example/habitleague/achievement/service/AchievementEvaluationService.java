@@ -1,10 +1,13 @@
 package com.example.habitleague.achievement.service;
 
 import com.example.habitleague.achievement.event.AchievementUnlockedEvent;
+import com.example.habitleague.achievement.event.AchievementsUnlockedEvent;
 import com.example.habitleague.achievement.model.Achievement;
 import com.example.habitleague.achievement.model.AchievementType;
 import com.example.habitleague.achievement.model.UserAchievement;
 import com.example.habitleague.achievement.repository.AchievementRepository;
+import com.example.habitleague.achievement.repository.UserAchievementBatchRepository;
+import com.example.habitleague.achievement.repository.UserAchievementBatchRepository.NewUnlock;
 import com.example.habitleague.achievement.repository.UserAchievementRepository;
 import com.example.habitleague.user.model.User;
 import com.example.habitleague.user.repository.UserRepository;
@@ -14,7 +17,16 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Servicio para evaluar y desbloquear logros basado en acciones del usuario
@@ -29,6 +41,14 @@ public class AchievementEvaluationService {
     private final UserAchievementRepository userAchievementRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final UnlockedAchievementCache unlockedAchievements;
+    private final UserAchievementBatchRepository batchRepository;
+
+    // Usuarios por consulta IN al comprobar logros existentes
+    private static final int EXISTING_QUERY_CHUNK = 1000;
+
+    // Días consecutivos para "Racha de 7 días"
+    public static final int STREAK_DAYS = 7;
     
     /**
      * Evalúa y desbloquea el logro "Primer reto completado"
@@ -43,29 +63,103 @@ public class AchievementEvaluationService {
     }
     
     /**
-     * Evalúa y desbloquea el logro "Racha de 7 días"
+     * Evalúa y desbloquea el logro "Racha de 7 días" a partir de la racha más larga
+     * del participante (contador del índice de días)
      */
-    public void evaluateSevenDayStreak(Long userId, int currentStreak, Long challengeId) {
-        log.debug("Evaluando logro 'Racha de 7 días' para usuario: {} (racha actual: {})", userId, currentStreak);
+    public void evaluateSevenDayStreak(Long userId, int longestStreak, Long challengeId) {
+        log.debug("Evaluando logro 'Racha de 7 días' para usuario: {} (racha más larga: {})", userId, longestStreak);
         
-        if (currentStreak >= 7 && !hasAchievement(userId, AchievementType.SEVEN_DAY_STREAK)) {
-            String contextInfo = String.format("Racha de %d días consecutivos (Challenge ID: %d)", currentStreak, challengeId);
+        if (longestStreak >= STREAK_DAYS && !hasAchievement(userId, AchievementType.SEVEN_DAY_STREAK)) {
+            String contextInfo = String.format("Racha de %d días consecutivos (Challenge ID: %d)", longestStreak, challengeId);
             unlockAchievement(userId, AchievementType.SEVEN_DAY_STREAK, challengeId, contextInfo);
         }
     }
     
     /**
-     * Evalúa y desbloquea el logro "Sin excusas" (reto perfecto)
+     * Evalúa y desbloquea el logro "Sin excusas" (reto perfecto): una racha sin huecos
+     * que cubre todos los días del reto
      */
-    public void evaluatePerfectChallenge(Long userId, Long challengeId, int progressDays, int totalDays) {
-        log.debug("Evaluando logro 'Sin excusas' para usuario: {} (progreso: {}/{})", userId, progressDays, totalDays);
+    public void evaluatePerfectChallenge(Long userId, Long challengeId, int longestStreak, int totalDays) {
+        log.debug("Evaluando logro 'Sin excusas' para usuario: {} (racha: {}/{})", userId, longestStreak, totalDays);
         
-        if (progressDays == totalDays && !hasAchievement(userId, AchievementType.PERFECT_CHALLENGE)) {
-            String contextInfo = String.format("Reto perfecto: %d/%d días (Challenge ID: %d)", progressDays, totalDays, challengeId);
+        if (longestStreak >= totalDays && !hasAchievement(userId, AchievementType.PERFECT_CHALLENGE)) {
+            String contextInfo = String.format("Reto perfecto: %d/%d días (Challenge ID: %d)", totalDays, totalDays, challengeId);
             unlockAchievement(userId, AchievementType.PERFECT_CHALLENGE, challengeId, contextInfo);
         }
     }
     
+    /**
+     * Evalúa varios participantes a la vez: reglas en memoria, una consulta (por cada
+     * 1000 usuarios) para los logros ya desbloqueados, un INSERT por lotes y un único
+     * evento agregado.
+     *
+     * @return número de logros desbloqueados
+     */
+    public int evaluateBatch(Collection<AchievementCandidate> candidates) {
+        // 1. Reglas sobre las métricas; los que la caché ya da por desbloqueados se descartan
+        List<EarnedAchievement> earned = new ArrayList<>();
+        for (AchievementCandidate candidate : candidates) {
+            for (AchievementType type : candidate.earnedTypes()) {
+                if (!unlockedAchievements.hasCached(candidate.userId(), type)) {
+                    earned.add(new EarnedAchievement(candidate, type));
+                }
+            }
+        }
+        if (earned.isEmpty()) {
+            return 0;
+        }
+
+        // 2. Logros ya desbloqueados de esos usuarios
+        List<Long> userIds = earned.stream().map(e -> e.candidate().userId()).distinct().toList();
+        Map<Long, List<AchievementType>> existingByUser = new HashMap<>();
+        userIds.forEach(userId -> existingByUser.put(userId, new ArrayList<>()));
+        for (int from = 0; from < userIds.size(); from += EXISTING_QUERY_CHUNK) {
+            userAchievementRepository.findUnlockedTypesByUserIds(
+                    userIds.subList(from, Math.min(from + EXISTING_QUERY_CHUNK, userIds.size())))
+                .forEach(view -> existingByUser.get(view.getUserId()).add(view.getType()));
+        }
+        // La próxima evaluación de quienes ya tienen el logro no necesitará consulta
+        existingByUser.forEach(unlockedAchievements::put);
+
+        Map<AchievementType, Achievement> active = new EnumMap<>(AchievementType.class);
+        achievementRepository.findByIsActiveTrue().forEach(achievement -> active.put(achievement.getType(), achievement));
+
+        // 3. Insertar los nuevos (un usuario no recibe dos veces el mismo logro en el lote)
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> seen = new HashSet<>();
+        List<NewUnlock> rows = new ArrayList<>();
+        List<EarnedAchievement> pending = new ArrayList<>();
+        for (EarnedAchievement e : earned) {
+            Achievement achievement = active.get(e.type());
+            String key = e.candidate().userId() + ":" + e.type();
+            if (achievement == null || existingByUser.get(e.candidate().userId()).contains(e.type()) || !seen.add(key)) {
+                continue;
+            }
+            rows.add(new NewUnlock(e.candidate().userId(), achievement.getId(), e.candidate().challengeId(),
+                e.contextInfo(), now));
+            pending.add(e);
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        boolean[] inserted = batchRepository.insertIgnoringDuplicates(rows);
+
+        // 4. Un solo evento con todo lo desbloqueado
+        List<AchievementUnlockedEvent> unlocked = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (inserted[i]) {
+                NewUnlock row = rows.get(i);
+                unlocked.add(new AchievementUnlockedEvent(row.userId(), row.achievementId(), pending.get(i).type(),
+                    row.challengeId(), row.contextInfo(), row.unlockedAt()));
+            }
+        }
+        if (!unlocked.isEmpty()) {
+            eventPublisher.publishEvent(new AchievementsUnlockedEvent(unlocked));
+        }
+        log.info("✅ Evaluación por lotes: {} candidatos, {} logros desbloqueados", candidates.size(), unlocked.size());
+        return unlocked.size();
+    }
+    
     /**
      * Evalúa y desbloquea el logro "Primer pago de penalización"
      */
@@ -79,10 +173,18 @@ public class AchievementEvaluationService {
     }
     
     /**
-     * Verifica si un usuario ya tiene un logro específico
+     * Verifica si un usuario ya tiene un logro específico. Si la caché lo tiene no se
+     * consulta nada; un "no" se confirma antes de desbloquear (pudo desbloquearse en otro nodo).
      */
     private boolean hasAchievement(Long userId, AchievementType achievementType) {
-        return userAchievementRepository.existsByUserIdAndAchievementType(userId, achievementType);
+        if (unlockedAchievements.has(userId, achievementType)) {
+            return true;
+        }
+        if (userAchievementRepository.existsByUserIdAndAchievementType(userId, achievementType)) {
+            unlockedAchievements.invalidate(userId);
+            return true;
+        }
+        return false;
     }
     
     /**
@@ -131,6 +233,44 @@ public class AchievementEvaluationService {
         }
     }
     
+    /**
+     * Métricas de un participante para la evaluación por lotes. {@code challengeCompleted}
+     * indica que terminó el reto (ganador) y {@code challengeDays} su duración.
+     */
+    public record AchievementCandidate(Long userId, Long challengeId, boolean challengeCompleted,
+                                       int longestStreak, int challengeDays) {
+
+        List<AchievementType> earnedTypes() {
+            List<AchievementType> types = new ArrayList<>(3);
+            if (challengeCompleted) {
+                types.add(AchievementType.FIRST_CHALLENGE_COMPLETED);
+                if (longestStreak >= challengeDays) {
+                    types.add(AchievementType.PERFECT_CHALLENGE);
+                }
+            }
+            if (longestStreak >= STREAK_DAYS) {
+                types.add(AchievementType.SEVEN_DAY_STREAK);
+            }
+            return types;
+        }
+    }
+
+    private record EarnedAchievement(AchievementCandidate candidate, AchievementType type) {
+
+        String contextInfo() {
+            return switch (type) {
+                case FIRST_CHALLENGE_COMPLETED ->
+                    String.format("Primer reto completado (Challenge ID: %d)", candidate.challengeId());
+                case PERFECT_CHALLENGE -> String.format("Reto perfecto: %d/%d días (Challenge ID: %d)",
+                    candidate.challengeDays(), candidate.challengeDays(), candidate.challengeId());
+                case SEVEN_DAY_STREAK -> String.format("Racha de %d días consecutivos (Challenge ID: %d)",
+                    candidate.longestStreak(), candidate.challengeId());
+                case FIRST_PENALTY_PAYMENT ->
+                    String.format("Primer pago de penalización (Challenge ID: %d)", candidate.challengeId());
+            };
+        }
+    }
+    
     /**
      * Método público para desbloquear logros manualmente (para testing o administración)
      */
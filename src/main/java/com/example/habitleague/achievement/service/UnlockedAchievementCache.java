@@ -0,0 +1,116 @@
+package com.example.habitleague.achievement.service;
+
+import com.example.habitleague.achievement.event.AchievementUnlockedEvent;
+import com.example.habitleague.achievement.event.AchievementsUnlockedEvent;
+import com.example.habitleague.achievement.model.AchievementType;
+import com.example.habitleague.achievement.repository.UserAchievementRepository;
+import com.example.habitleague.achievement.repository.UserAchievementRepository.UnlockedTypeView;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Logros desbloqueados por usuario como máscara de bits (un bit por {@link AchievementType}).
+ * Un "sí" es definitivo; un "no" puede estar desactualizado si el logro se desbloqueó en
+ * otro nodo, y quien lo use debe confirmarlo.
+ */
+@Service
+@Slf4j
+public class UnlockedAchievementCache {
+
+    private final LoadingCache<Long, Integer> unlockedByUser;
+
+    public UnlockedAchievementCache(
+            UserAchievementRepository userAchievementRepository,
+            MeterRegistry meterRegistry,
+            @Qualifier("cacheLoadExecutor") Executor cacheLoadExecutor,
+            @Value("${achievement.unlocked-cache.max-size:100000}") long maxSize,
+            @Value("${achievement.unlocked-cache.ttl-minutes:2880}") long ttlMinutes) {
+        this.unlockedByUser = CaffeineCacheMetrics.monitor(meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .executor(cacheLoadExecutor)
+                .buildAsync(new MaskLoader(userAchievementRepository)),
+            "achievement.unlocked").synchronous();
+    }
+
+    public boolean has(Long userId, AchievementType type) {
+        return (unlockedByUser.get(userId) & bit(type)) != 0;
+    }
+
+    /**
+     * Como {@link #has} pero sin cargar: false también si el usuario no está en caché
+     */
+    public boolean hasCached(Long userId, AchievementType type) {
+        Integer mask = unlockedByUser.getIfPresent(userId);
+        return mask != null && (mask & bit(type)) != 0;
+    }
+
+    /**
+     * Guarda los logros leídos de base de datos para un usuario (sin los desbloqueos aún
+     * sin confirmar, que se añaden al confirmar la transacción)
+     */
+    public void put(Long userId, Collection<AchievementType> unlocked) {
+        int mask = 0;
+        for (AchievementType type : unlocked) {
+            mask |= bit(type);
+        }
+        unlockedByUser.put(userId, mask);
+    }
+
+    public void invalidate(Long userId) {
+        unlockedByUser.invalidate(userId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAchievementUnlocked(AchievementUnlockedEvent event) {
+        unlockedByUser.asMap().computeIfPresent(event.getUserId(),
+            (userId, mask) -> mask | bit(event.getAchievementType()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAchievementsUnlocked(AchievementsUnlockedEvent event) {
+        event.getUnlocked().forEach(this::onAchievementUnlocked);
+    }
+
+    private static int bit(AchievementType type) {
+        return 1 << type.ordinal();
+    }
+
+    private record MaskLoader(UserAchievementRepository repository) implements CacheLoader<Long, Integer> {
+
+        @Override
+        public Integer load(Long userId) {
+            return loadAll(Set.of(userId)).get(userId);
+        }
+
+        @Override
+        public Map<Long, Integer> loadAll(Set<? extends Long> userIds) {
+            Map<Long, Integer> masks = new HashMap<>();
+            userIds.forEach(userId -> masks.put(userId, 0));
+            List<UnlockedTypeView> unlocked = repository.findUnlockedTypesByUserIds(List.copyOf(userIds));
+            for (UnlockedTypeView view : unlocked) {
+                masks.merge(view.getUserId(), bit(view.getType()), (a, b) -> a | b);
+            }
+            return masks;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.habitleague.auth.controller;
 import com.example.habitleague.auth.dto.AuthenticationRequest;
 import com.example.habitleague.auth.dto.RegisterRequest;
 import com.example.habitleague.auth.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +12,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Login y registro. Las respuestas son asíncronas: el hilo de Tomcat se libera mientras
+ * BCrypt se ejecuta en su propio pool.
+ */
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -19,15 +26,16 @@ public class AuthController {
     private final AuthService authService;
 
     @PostMapping(value = "/register")
-    public ResponseEntity<String> register(
-        @RequestBody @Valid RegisterRequest request) {
-        String token = authService.register(request);
-        return ResponseEntity.ok(token);
+    public CompletableFuture<ResponseEntity<String>> register(
+        @RequestBody @Valid RegisterRequest request, HttpServletRequest httpRequest) {
+        return authService.register(request, httpRequest.getRemoteAddr())
+            .thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody @Valid AuthenticationRequest request) {
-        String token = authService.login(request);
-        return ResponseEntity.ok(token);
+    public CompletableFuture<ResponseEntity<String>> login(
+        @RequestBody @Valid AuthenticationRequest request, HttpServletRequest httpRequest) {
+        return authService.login(request, httpRequest.getRemoteAddr())
+            .thenApply(ResponseEntity::ok);
     }
-} 
\ No newline at end of file
+}
@@ -2,58 +2,107 @@ package com.example.habitleague.auth.service;
 
 import com.example.habitleague.auth.dto.AuthenticationRequest;
 import com.example.habitleague.auth.dto.RegisterRequest;
+import com.example.habitleague.shared.event.UserUpdatedEvent;
 import com.example.habitleague.shared.exception.UserAlreadyExistsException;
 import com.example.habitleague.user.model.User;
 import com.example.habitleague.user.model.UserRole;
 import com.example.habitleague.user.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Registro y login. Solo BCrypt corre en el pool de hashing; lo que viene después (escritura
+ * en la base de datos y generación del JWT) pasa al pool general para no ocupar sus hilos con E/S.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
+    private final ApplicationEventPublisher publisher;
+    private final Executor postHashExecutor;
+
+    public AuthService(UserRepository userRepository,
+                       PasswordHashingService passwordHashingService,
+                       JwtService jwtService,
+                       ApplicationEventPublisher publisher,
+                       @Qualifier("applicationTaskExecutor") Executor postHashExecutor) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.jwtService = jwtService;
+        this.publisher = publisher;
+        this.postHashExecutor = postHashExecutor;
+    }
 
-    public String register(RegisterRequest request) {
+    /**
+     * Registra al usuario; el hash de la contraseña se calcula en el pool de hashing. El
+     * email se comprueba antes del hash para fallar rápido, pero dos registros simultáneos
+     * pueden pasar ambos esa comprobación: el segundo choca con la restricción única al guardar.
+     *
+     * @param clientKey identificador del cliente (IP) para el límite de concurrencia
+     */
+    public CompletableFuture<String> register(RegisterRequest request, String clientKey) {
         // Verificar si el email ya existe
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
             throw new UserAlreadyExistsException("El email ya está registrado");
         }
 
-        // Crear nuevo usuario
-        User user = new User();
-        user.setFirstName(request.getFirstName());
-        user.setLastName(request.getLastName());
-        user.setBio(request.getBio());
-        user.setAvatarId(request.getAvatarId());
-        user.setProfilePhotoUrl(request.getProfilePhotoUrl());
-        user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole(UserRole.USER);
-
-        // Guardar usuario
-        userRepository.save(user);
-
-        // Generar y retornar token JWT
-        return jwtService.generateToken(user.getEmail());
+        return passwordHashingService.encode(clientKey, request.getPassword()).thenApplyAsync(encodedPassword -> {
+            // Crear nuevo usuario
+            User user = new User();
+            user.setFirstName(request.getFirstName());
+            user.setLastName(request.getLastName());
+            user.setBio(request.getBio());
+            user.setAvatarId(request.getAvatarId());
+            user.setProfilePhotoUrl(request.getProfilePhotoUrl());
+            user.setEmail(request.getEmail());
+            user.setPassword(encodedPassword);
+            user.setRole(UserRole.USER);
+
+            // Guardar usuario
+            try {
+                userRepository.save(user);
+            } catch (DataIntegrityViolationException e) {
+                throw new UserAlreadyExistsException("El email ya está registrado");
+            }
+
+            // Generar y retornar token JWT
+            return jwtService.generateToken(user);
+        }, postHashExecutor);
     }
 
-    public String login(AuthenticationRequest request) {
+    /**
+     * Verifica las credenciales en el pool de hashing. Si el hash guardado usa un coste
+     * distinto del configurado, se reemplaza por uno nuevo sin que el usuario lo note.
+     */
+    public CompletableFuture<String> login(AuthenticationRequest request, String clientKey) {
         // Buscar usuario por email
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new BadCredentialsException("Credenciales inválidas"));
 
-        // Verificar contraseña
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new BadCredentialsException("Credenciales inválidas");
-        }
+        return passwordHashingService.verify(clientKey, request.getPassword(), user.getPassword())
+                .thenApplyAsync(verification -> {
+                    // Verificar contraseña
+                    if (!verification.matches()) {
+                        throw new BadCredentialsException("Credenciales inválidas");
+                    }
+                    if (verification.rehashed() != null) {
+                        userRepository.updatePassword(user.getId(), verification.rehashed());
+                        publisher.publishEvent(new UserUpdatedEvent(user.getId(), user.getEmail()));
+                        log.info("Hash de contraseña actualizado al coste configurado para usuario {}", user.getId());
+                    }
 
-        // Generar y retornar token JWT
-        return jwtService.generateToken(user.getEmail());
+                    // Generar y retornar token JWT
+                    return jwtService.generateToken(user);
+                }, postHashExecutor);
     }
-} 
\ No newline at end of file
+}
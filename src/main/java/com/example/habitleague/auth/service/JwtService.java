@@ -1,72 +1,165 @@
 package com.example.habitleague.auth.service;
 
+import com.example.habitleague.user.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
+/**
+ * Emisión y verificación de tokens JWT. La clave HMAC y el parser se construyen una sola
+ * vez; cada token se verifica una vez y sus datos quedan en una caché acotada hasta que
+ * el token expira, así las peticiones siguientes con el mismo token no repiten la firma. En
+ * caché se guarda un {@link VerifiedToken} inmutable, no el mapa de claims, porque la misma
+ * entrada la comparten peticiones concurrentes.
+ */
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    // Claims opcionales para autenticar sin consultar la base de datos
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(
+            @Value("${jwt.secret}") String secretKey,
+            @Value("${jwt.expiration}") long jwtExpiration,
+            @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize,
+            MeterRegistry meterRegistry) {
+        this.jwtExpiration = jwtExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = CaffeineCacheMetrics.monitor(meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .<String, VerifiedToken>build(),
+            "auth.jwt.verified");
+    }
 
     public String generateToken(String email) {
         return generateToken(new HashMap<>(), email);
     }
 
+    /**
+     * Token con el id y el rol del usuario como claims
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        return generateToken(claims, user.getEmail());
+    }
+
     public String generateToken(Map<String, Object> extraClaims, String email) {
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(email)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token) {
+        return extractValidToken(token) != null;
+    }
+
+    /**
+     * Datos de un token con firma y expiración válidas, o null si no lo es
+     */
+    public VerifiedToken extractValidToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            // La entrada puede sobrevivir unos milisegundos a la expiración del token
+            return cached.isExpired() ? null : cached;
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            VerifiedToken verified = VerifiedToken.of(parser.parseClaimsJws(token).getBody());
+            verifiedTokens.put(token, verified);
+            return verified;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
         }
     }
 
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        VerifiedToken verified = extractValidToken(token);
+        return verified != null ? verified.subject() : null;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
+    /**
+     * Campos usados de un token verificado. userId y role son null en tokens sin esos claims;
+     * expiresAt es null si el token no expira.
+     */
+    public record VerifiedToken(String subject, Long userId, String role, Instant expiresAt) {
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        static VerifiedToken of(Claims claims) {
+            Number userId = claims.get(USER_ID_CLAIM, Number.class);
+            Date expiration = claims.getExpiration();
+            return new VerifiedToken(
+                claims.getSubject(),
+                userId != null ? userId.longValue() : null,
+                claims.get(ROLE_CLAIM, String.class),
+                expiration != null ? expiration.toInstant() : null);
+        }
+
+        boolean isExpired() {
+            return expiresAt != null && !expiresAt.isAfter(Instant.now());
+        }
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Cada token verificado permanece en caché hasta su fecha de expiración
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        private static final long NO_EXPIRATION = Duration.ofHours(1).toNanos();
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            if (verified.expiresAt() == null) {
+                return NO_EXPIRATION;
+            }
+            Duration remaining = Duration.between(Instant.now(), verified.expiresAt());
+            return Math.max(0, remaining.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-} 
\ No newline at end of file
+}
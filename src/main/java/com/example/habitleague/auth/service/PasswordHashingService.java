@@ -0,0 +1,148 @@
+package com.example.habitleague.auth.service;
+
+import com.example.habitleague.shared.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hashing de contraseñas (BCrypt) fuera de los hilos de Tomcat. El trabajo se ejecuta en
+ * un pool acotado; si su cola está llena o el cliente ya tiene demasiadas operaciones en
+ * curso, la petición se rechaza con {@link TooManyRequestsException} en lugar de esperar.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final int bcryptStrength;
+    private final int maxConcurrentPerClient;
+
+    // Operaciones en curso por cliente (IP)
+    private final ConcurrentHashMap<String, Integer> inFlightByClient = new ConcurrentHashMap<>();
+
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedClientLimit;
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            @Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor executor,
+            MeterRegistry meterRegistry,
+            @Value("${auth.password.bcrypt-strength:10}") int bcryptStrength,
+            @Value("${auth.password.max-concurrent-per-client:4}") int maxConcurrentPerClient) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.bcryptStrength = bcryptStrength;
+        this.maxConcurrentPerClient = maxConcurrentPerClient;
+
+        this.encodeTimer = Timer.builder("auth.password.hash")
+            .tag("operation", "encode").register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.password.hash")
+            .tag("operation", "verify").register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.password.queue.wait").register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("auth.password.rejected")
+            .tag("reason", "queue-full").register(meterRegistry);
+        this.rejectedClientLimit = Counter.builder("auth.password.rejected")
+            .tag("reason", "client-limit").register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+            .register(meterRegistry);
+    }
+
+    /**
+     * Calcula el hash de una contraseña nueva
+     */
+    public CompletableFuture<String> encode(String clientKey, String rawPassword) {
+        return submit(clientKey, encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Comprueba la contraseña. Si coincide y el hash se generó con otro coste distinto del
+     * configurado, en la misma tarea se calcula el hash nuevo para guardarlo.
+     */
+    public CompletableFuture<Verification> verify(String clientKey, String rawPassword, String encodedPassword) {
+        return submit(clientKey, verifyTimer, () -> {
+            if (!passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            String rehashed = needsRehash(encodedPassword) ? passwordEncoder.encode(rawPassword) : null;
+            return new Verification(true, rehashed);
+        });
+    }
+
+    /**
+     * El coste del hash guardado no coincide con el configurado (al subirlo o al bajarlo)
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+
+    private <T> CompletableFuture<T> submit(String clientKey, Timer timer, Supplier<T> work) {
+        String client = clientKey != null ? clientKey : "unknown";
+        acquire(client);
+
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return timer.record(work);
+            }, executor).whenComplete((result, error) -> release(client));
+        } catch (RejectedExecutionException e) {
+            release(client);
+            rejectedQueueFull.increment();
+            log.warn("Hashing de contraseñas saturado: petición de {} rechazada", client);
+            throw new TooManyRequestsException("Demasiadas solicitudes de autenticación, inténtalo de nuevo");
+        }
+    }
+
+    private void acquire(String client) {
+        boolean[] admitted = new boolean[1];
+        inFlightByClient.compute(client, (k, inFlight) -> {
+            int current = inFlight != null ? inFlight : 0;
+            if (current >= maxConcurrentPerClient) {
+                return inFlight;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        if (!admitted[0]) {
+            rejectedClientLimit.increment();
+            throw new TooManyRequestsException("Demasiadas solicitudes de autenticación simultáneas");
+        }
+    }
+
+    private void release(String client) {
+        // Se elimina la entrada al llegar a cero para que el mapa no crezca con cada IP
+        inFlightByClient.computeIfPresent(client, (k, inFlight) -> inFlight > 1 ? inFlight - 1 : null);
+    }
+
+    /**
+     * Resultado de la verificación; {@code rehashed} es el hash nuevo si hay que actualizarlo
+     */
+    public record Verification(boolean matches, String rehashed) {
+    }
+}
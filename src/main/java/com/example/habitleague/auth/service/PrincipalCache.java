@@ -0,0 +1,89 @@
+package com.example.habitleague.auth.service;
+
+import com.example.habitleague.shared.event.UserUpdatedEvent;
+import com.example.habitleague.user.model.AvatarId;
+import com.example.habitleague.user.model.User;
+import com.example.habitleague.user.model.UserRole;
+import com.example.habitleague.user.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Caché de usuarios autenticados por email, para no consultar la tabla de usuarios en
+ * cada petición. Se guarda una copia inmutable y cada petición recibe su propia entidad
+ * (desacoplada), así los cambios que haga una petición no se ven en las demás.
+ */
+@Service
+@Slf4j
+public class PrincipalCache {
+
+    private final LoadingCache<String, CachedPrincipal> principals;
+
+    public PrincipalCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Qualifier("cacheLoadExecutor") Executor cacheLoadExecutor,
+            @Value("${auth.principal-cache.max-size:10000}") long maxSize,
+            @Value("${auth.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.principals = CaffeineCacheMetrics.monitor(meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .executor(cacheLoadExecutor)
+                .buildAsync((String email) -> userRepository.findByEmail(email).map(CachedPrincipal::of).orElse(null)),
+            "auth.principal").synchronous();
+    }
+
+    /**
+     * Usuario con el email indicado (los emails inexistentes no se guardan en caché)
+     */
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(principals.get(email)).map(CachedPrincipal::toUser);
+    }
+
+    /**
+     * Usuario con el email indicado solo si ya está en caché; nunca consulta la base de datos
+     */
+    public Optional<User> findIfPresent(String email) {
+        return Optional.ofNullable(principals.getIfPresent(email)).map(CachedPrincipal::toUser);
+    }
+
+    public void invalidate(String email) {
+        principals.invalidate(email);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        invalidate(event.getEmail());
+        log.debug("Usuario {} eliminado de la caché de autenticación", event.getUserId());
+    }
+
+    private record CachedPrincipal(Long id, String firstName, String lastName, String email, String password,
+                                   String bio, String profilePhotoUrl, AvatarId avatarId, UserRole role,
+                                   LocalDateTime createdAt) {
+
+        static CachedPrincipal of(User user) {
+            return new CachedPrincipal(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getPassword(), user.getBio(), user.getProfilePhotoUrl(), user.getAvatarId(), user.getRole(),
+                user.getCreatedAt());
+        }
+
+        User toUser() {
+            return new User(id, firstName, lastName, email, password, bio, profilePhotoUrl, avatarId, role, createdAt);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.example.habitleague.challenge.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -11,21 +13,35 @@ import com.example.habitleague.challenge.dto.*;
 import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeCategory;
 import com.example.habitleague.challenge.model.ChallengeMember;
+import com.example.habitleague.challenge.model.ChallengeSnapshot;
+import com.example.habitleague.challenge.model.ChallengeStatus;
+import com.example.habitleague.challenge.service.ChallengeCatalogService;
 import com.example.habitleague.challenge.service.ChallengeService;
 import com.example.habitleague.challenge.service.ChallengeLifecycleService;
+import com.example.habitleague.challenge.service.DiscoverFeedService;
+import com.example.habitleague.challenge.service.LifecyclePartitionExecutor.PartitionRunReport;
+import com.example.habitleague.challenge.service.MembershipService;
 import com.example.habitleague.challenge.schedule.DailyLifecycleScheduler;
+import com.example.habitleague.challenge.schedule.DailyLifecycleScheduler.BackfillReport;
 import com.example.habitleague.location.dto.LocationRegistrationRequest;
 import com.example.habitleague.location.dto.LocationRegistrationResponse;
+import com.example.habitleague.location.model.RegisteredLocation;
 import com.example.habitleague.location.service.LocationRegistrationService;
+import com.example.habitleague.location.service.RegisteredLocationIndex;
+import com.example.habitleague.location.service.RegisteredLocationIndex.LocationHit;
 import com.example.habitleague.payment.dto.PaymentRequest;
 import com.example.habitleague.payment.dto.PaymentResponse;
 import com.example.habitleague.payment.service.PaymentService;
 import com.example.habitleague.shared.exception.ChallengeException;
 import com.example.habitleague.user.model.User;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api/challenges")
 @RequiredArgsConstructor
@@ -36,6 +52,10 @@ public class ChallengeController {
     private final LocationRegistrationService locationRegistrationService;
     private final ChallengeLifecycleService lifecycleService;
     private final DailyLifecycleScheduler dailyScheduler;
+    private final RegisteredLocationIndex locationIndex;
+    private final DiscoverFeedService discoverFeedService;
+    private final ChallengeCatalogService catalogService;
+    private final MembershipService membershipService;
 
     @PostMapping
     @Transactional
@@ -139,6 +159,22 @@ public class ChallengeController {
         return ResponseEntity.ok(response);
     }
 
+    // Catálogo paginado por cursor: pasar nextCursor de la respuesta para la siguiente página
+    @GetMapping("/catalog")
+    public ResponseEntity<ChallengeCatalogPage> getCatalog(
+            @RequestParam(required = false) ChallengeCategory category,
+            @RequestParam(required = false) ChallengeStatus status,
+            @RequestParam(required = false) BigDecimal minFee,
+            @RequestParam(required = false) BigDecimal maxFee,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startTo,
+            @RequestParam(defaultValue = "ID") ChallengeCatalogSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        ChallengeCatalogFilter filter = new ChallengeCatalogFilter(category, status, minFee, maxFee, startFrom, startTo);
+        return ResponseEntity.ok(catalogService.getPage(filter, sort, cursor, size));
+    }
+
     @GetMapping("/{id}/participants")
     @Transactional(readOnly = true)
     public ResponseEntity<List<ChallengeParticipantResponse>> getParticipants(
@@ -162,88 +198,30 @@ public class ChallengeController {
     @GetMapping("/featured")
     @Transactional(readOnly = true)
     public ResponseEntity<List<ChallengeSummaryResponse>> getFeaturedChallenges() {
-        List<Challenge> challenges = challengeService.getFeaturedChallenges();
-        List<ChallengeSummaryResponse> response = challenges.stream()
-                .map(challenge -> {
-                    // Obtener ubicación del creador
-                    var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                    if (creatorLocation.isPresent()) {
-                        var location = creatorLocation.get();
-                        return ChallengeSummaryResponse.fromChallengeWithLocation(
-                                challenge,
-                                location.getLatitude(),
-                                location.getLongitude(),
-                                location.getAddress(),
-                                location.getLocationName(),
-                                location.getToleranceRadius()
-                        );
-                    } else {
-                        return ChallengeSummaryResponse.fromChallenge(challenge);
-                    }
-                })
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        List<Challenge> challenges = challengeService.getFeaturedChallengesWithLocation();
+        return ResponseEntity.ok(toSummariesWithLocation(challenges));
     }
 
     @GetMapping("/popular")
     @Transactional(readOnly = true)
     public ResponseEntity<List<ChallengeSummaryResponse>> getPopularChallenges(
             @RequestParam(defaultValue = "10") int limit) {
-        List<Challenge> challenges = challengeService.getPopularChallenges(limit);
-        List<ChallengeSummaryResponse> response = challenges.stream()
-                .map(challenge -> {
-                    // Obtener ubicación del creador
-                    var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                    if (creatorLocation.isPresent()) {
-                        var location = creatorLocation.get();
-                        return ChallengeSummaryResponse.fromChallengeWithLocation(
-                                challenge,
-                                location.getLatitude(),
-                                location.getLongitude(),
-                                location.getAddress(),
-                                location.getLocationName(),
-                                location.getToleranceRadius()
-                        );
-                    } else {
-                        return ChallengeSummaryResponse.fromChallenge(challenge);
-                    }
-                })
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        List<Challenge> challenges = challengeService.getPopularChallengesWithLocation(limit);
+        return ResponseEntity.ok(toSummariesWithLocation(challenges));
     }
 
     @GetMapping("/category/{category}")
     @Transactional(readOnly = true)
     public ResponseEntity<List<ChallengeSummaryResponse>> getChallengesByCategory(
             @PathVariable ChallengeCategory category) {
-        List<Challenge> challenges = challengeService.getChallengesByCategory(category);
-        List<ChallengeSummaryResponse> response = challenges.stream()
-                .map(challenge -> {
-                    // Obtener ubicación del creador
-                    var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                    if (creatorLocation.isPresent()) {
-                        var location = creatorLocation.get();
-                        return ChallengeSummaryResponse.fromChallengeWithLocation(
-                                challenge,
-                                location.getLatitude(),
-                                location.getLongitude(),
-                                location.getAddress(),
-                                location.getLocationName(),
-                                location.getToleranceRadius()
-                        );
-                    } else {
-                        return ChallengeSummaryResponse.fromChallenge(challenge);
-                    }
-                })
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        List<Challenge> challenges = challengeService.getChallengesByCategoryWithLocation(category);
+        return ResponseEntity.ok(toSummariesWithLocation(challenges));
     }
 
     @GetMapping("/{id}")
-    @Transactional(readOnly = true)
     public ResponseEntity<ChallengeResponse> getChallengeById(@PathVariable Long id) {
-        Challenge challenge = challengeService.getChallengeById(id);
-        return ResponseEntity.ok(ChallengeResponse.fromChallenge(challenge));
+        ChallengeSnapshot challenge = challengeService.getChallengeSnapshot(id);
+        return ResponseEntity.ok(ChallengeResponse.fromSnapshot(challenge));
     }
 
     @GetMapping("/my-challenges")
@@ -258,109 +236,55 @@ public class ChallengeController {
     }
 
     @GetMapping("/discover")
-    @Transactional(readOnly = true)
     public ResponseEntity<DiscoverResponse> getDiscoverData() {
-        // Obtener challenges destacados
-        List<Challenge> featured = challengeService.getFeaturedChallenges();
-        
-        // Obtener challenges populares
-        List<Challenge> popular = challengeService.getPopularChallenges(10);
-        
-        // Obtener challenges por categoría
-        Map<ChallengeCategory, List<ChallengeSummaryResponse>> byCategory = 
-            Map.of(
-                ChallengeCategory.MINDFULNESS, 
-                challengeService.getChallengesByCategory(ChallengeCategory.MINDFULNESS)
-                    .stream().map(challenge -> {
-                        var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                        if (creatorLocation.isPresent()) {
-                            var location = creatorLocation.get();
-                            return ChallengeSummaryResponse.fromChallengeWithLocation(
-                                    challenge,
-                                    location.getLatitude(),
-                                    location.getLongitude(),
-                                    location.getAddress(),
-                                    location.getLocationName(),
-                                    location.getToleranceRadius()
-                            );
-                        } else {
-                            return ChallengeSummaryResponse.fromChallenge(challenge);
-                        }
-                    }).collect(Collectors.toList()),
-                ChallengeCategory.FITNESS,
-                challengeService.getChallengesByCategory(ChallengeCategory.FITNESS)
-                    .stream().map(challenge -> {
-                        var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                        if (creatorLocation.isPresent()) {
-                            var location = creatorLocation.get();
-                            return ChallengeSummaryResponse.fromChallengeWithLocation(
-                                    challenge,
-                                    location.getLatitude(),
-                                    location.getLongitude(),
-                                    location.getAddress(),
-                                    location.getLocationName(),
-                                    location.getToleranceRadius()
-                            );
-                        } else {
-                            return ChallengeSummaryResponse.fromChallenge(challenge);
-                        }
-                    }).collect(Collectors.toList()),
-                ChallengeCategory.PRODUCTIVITY,
-                challengeService.getChallengesByCategory(ChallengeCategory.PRODUCTIVITY)
-                    .stream().map(challenge -> {
-                        var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                        if (creatorLocation.isPresent()) {
-                            var location = creatorLocation.get();
-                            return ChallengeSummaryResponse.fromChallengeWithLocation(
+        return ResponseEntity.ok(discoverFeedService.getFeed());
+    }
+
+    // Challenges más cercanos al usuario (k por página, ordenados por distancia)
+    @GetMapping("/nearby")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getNearbyChallenges(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "50000") double radius,
+            @RequestParam(defaultValue = "20") int k,
+            @RequestParam(defaultValue = "0") int page) {
+
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180 || radius <= 0
+                || k < 1 || k > 100 || page < 0 || page > 50) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Parámetros inválidos: lat en [-90, 90], lng en [-180, 180], radius > 0, k en [1, 100] y page en [0, 50]"
+            ));
+        }
+
+        List<LocationHit> nearest = locationIndex.findNearestChallenges(lat, lng, (page + 1) * k, radius);
+        List<LocationHit> pageHits = nearest.subList(Math.min(page * k, nearest.size()), nearest.size());
+
+        Map<Long, Challenge> challenges = challengeService
+                .getChallengesByIds(pageHits.stream().map(hit -> hit.location().challengeId()).toList())
+                .stream()
+                .collect(Collectors.toMap(Challenge::getId, Function.identity()));
+        Map<Long, RegisteredLocation> locations = locationRegistrationService
+                .getLocationsByIds(pageHits.stream().map(hit -> hit.location().id()).toList());
+
+        List<ChallengeSummaryResponse> response = pageHits.stream()
+                .filter(hit -> challenges.containsKey(hit.location().challengeId()))
+                .map(hit -> {
+                    Challenge challenge = challenges.get(hit.location().challengeId());
+                    RegisteredLocation location = locations.get(hit.location().id());
+                    ChallengeSummaryResponse summary = location != null
+                            ? ChallengeSummaryResponse.fromChallengeWithLocation(
                                     challenge,
                                     location.getLatitude(),
                                     location.getLongitude(),
                                     location.getAddress(),
                                     location.getLocationName(),
-                                    location.getToleranceRadius()
-                            );
-                        } else {
-                            return ChallengeSummaryResponse.fromChallenge(challenge);
-                        }
-                    }).collect(Collectors.toList())
-            );
-
-        DiscoverResponse response = DiscoverResponse.builder()
-                .featured(featured.stream().map(challenge -> {
-                    var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                    if (creatorLocation.isPresent()) {
-                        var location = creatorLocation.get();
-                        return ChallengeSummaryResponse.fromChallengeWithLocation(
-                                challenge,
-                                location.getLatitude(),
-                                location.getLongitude(),
-                                location.getAddress(),
-                                location.getLocationName(),
-                                location.getToleranceRadius()
-                        );
-                    } else {
-                        return ChallengeSummaryResponse.fromChallenge(challenge);
-                    }
-                }).collect(Collectors.toList()))
-                .popular(popular.stream().map(challenge -> {
-                    var creatorLocation = locationRegistrationService.getCreatorLocationByChallenge(challenge.getId());
-                    if (creatorLocation.isPresent()) {
-                        var location = creatorLocation.get();
-                        return ChallengeSummaryResponse.fromChallengeWithLocation(
-                                challenge,
-                                location.getLatitude(),
-                                location.getLongitude(),
-                                location.getAddress(),
-                                location.getLocationName(),
-                                location.getToleranceRadius()
-                        );
-                    } else {
-                        return ChallengeSummaryResponse.fromChallenge(challenge);
-                    }
-                }).collect(Collectors.toList()))
-                .byCategory(byCategory)
-                .build();
-
+                                    location.getToleranceRadius())
+                            : ChallengeSummaryResponse.fromChallenge(challenge);
+                    summary.setDistanceMeters(hit.distanceMeters());
+                    return summary;
+                })
+                .collect(Collectors.toList());
         return ResponseEntity.ok(response);
     }
 
@@ -442,23 +366,21 @@ public class ChallengeController {
             @PathVariable Long id,
             @AuthenticationPrincipal User user) {
 
-        Challenge challenge = challengeService.getChallengeById(id);
+        ChallengeSnapshot challenge = challengeService.getChallengeSnapshot(id);
         
         // Verificar si el usuario ya está en el challenge
-        boolean alreadyJoined = challengeService.getAllChallenges().stream()
-                .anyMatch(c -> c.getId().equals(id) && c.getMembers().stream()
-                        .anyMatch(member -> member.getUser().getId().equals(user.getId())));
+        boolean alreadyJoined = membershipService.isMember(user.getId(), id);
 
         // Verificar estado del pago
-        boolean paymentCompleted = paymentService.hasUserPaidForChallenge(user, challenge);
+        boolean paymentCompleted = paymentService.hasUserPaidForChallenge(user, id);
 
         // Verificar estado de la ubicación (esto requerirá algo de lógica adicional)
         boolean locationVerified = false; // Por ahora false, se implementaría la lógica real
 
         Map<String, Object> response = Map.of(
             "challengeId", id,
-            "challengeName", challenge.getName(),
-            "entryFee", challenge.getEntryFee(),
+            "challengeName", challenge.name(),
+            "entryFee", challenge.entryFee(),
             "alreadyJoined", alreadyJoined,
             "requirements", Map.of(
                 "paymentCompleted", paymentCompleted,
@@ -516,4 +438,67 @@ public class ChallengeController {
             ));
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Endpoint para reprocesar el ciclo diario en un rango de fechas pasadas
+     * (solo administradores; recuperación de ejecuciones perdidas). Cada shard se procesa
+     * bajo su lease; los que tiene otro nodo se omiten y se indican en la respuesta.
+     */
+    @PostMapping("/admin/backfill-daily-check")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> backfillDailyCheck(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            BackfillReport backfill = dailyScheduler.runBackfill(from, to);
+            List<PartitionRunReport> reports = backfill.reports();
+            long processed = reports.stream().mapToLong(report -> report.timings().size()).sum();
+            long failed = reports.stream().mapToLong(PartitionRunReport::failedCount).sum();
+            return ResponseEntity.ok(Map.of(
+                "message", backfill.busyShards().isEmpty()
+                    ? "Verificación diaria reprocesada"
+                    : "Verificación diaria reprocesada parcialmente: hay shards en ejecución en otro nodo",
+                "from", from,
+                "to", to,
+                "processed", processed,
+                "failed", failed,
+                "busyShards", backfill.busyShards()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Error reprocesando verificación: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Resume los challenges con la ubicación del creador. Se usa la referencia desnormalizada
+     * y, para los que aún no la tienen, una única consulta por lote.
+     */
+    private List<ChallengeSummaryResponse> toSummariesWithLocation(List<Challenge> challenges) {
+        List<Long> missing = challenges.stream()
+                .filter(challenge -> challenge.getCreatorLocation() == null)
+                .map(Challenge::getId)
+                .toList();
+        Map<Long, RegisteredLocation> fallback = locationRegistrationService.getCreatorLocations(missing);
+
+        return challenges.stream()
+                .map(challenge -> {
+                    RegisteredLocation location = challenge.getCreatorLocation() != null
+                            ? challenge.getCreatorLocation()
+                            : fallback.get(challenge.getId());
+                    if (location == null) {
+                        return ChallengeSummaryResponse.fromChallenge(challenge);
+                    }
+                    return ChallengeSummaryResponse.fromChallengeWithLocation(
+                            challenge,
+                            location.getLatitude(),
+                            location.getLongitude(),
+                            location.getAddress(),
+                            location.getLocationName(),
+                            location.getToleranceRadius()
+                    );
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.habitleague.challenge.dto;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.challenge.model.ChallengeStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Filtros opcionales del catálogo (null = sin filtro). Las fechas acotan la fecha de inicio.
+ */
+public record ChallengeCatalogFilter(
+        ChallengeCategory category,
+        ChallengeStatus status,
+        BigDecimal minFee,
+        BigDecimal maxFee,
+        LocalDate startFrom,
+        LocalDate startTo) {
+}
@@ -0,0 +1,26 @@
+package com.example.habitleague.challenge.dto;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.challenge.model.ChallengeStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class ChallengeCatalogItem {
+    private Long id;
+    private String name;
+    private ChallengeCategory category;
+    private String imageUrl;
+    private Integer durationDays;
+    private BigDecimal entryFee;
+    private Boolean featured;
+    private Integer participantCount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private ChallengeStatus status;
+    private String creatorName;
+}
@@ -0,0 +1,14 @@
+package com.example.habitleague.challenge.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ChallengeCatalogPage {
+    private List<ChallengeCatalogItem> items;
+    private String nextCursor; // null en la última página
+    private Boolean hasMore;
+}
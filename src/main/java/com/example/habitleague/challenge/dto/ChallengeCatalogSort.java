@@ -0,0 +1,11 @@
+package com.example.habitleague.challenge.dto;
+
+/**
+ * Orden estable del catálogo. Todos desempatan por id, de modo que el cursor
+ * (último valor + último id) identifica una posición única.
+ */
+public enum ChallengeCatalogSort {
+    ID,
+    START_DATE,
+    POPULARITY
+}
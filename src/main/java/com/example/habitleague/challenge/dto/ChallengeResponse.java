@@ -2,6 +2,7 @@ package com.example.habitleague.challenge.dto;
 
 import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.challenge.model.ChallengeSnapshot;
 import com.example.habitleague.challenge.model.ChallengeStatus;
 import lombok.Builder;
 import lombok.Data;
@@ -41,7 +42,8 @@ public class ChallengeResponse {
                 .durationDays(challenge.getDurationDays())
                 .entryFee(challenge.getEntryFee())
                 .featured(challenge.getFeatured())
-                .participantCount(challenge.getMembers() != null ? challenge.getMembers().size() : 1)
+                .participantCount(challenge.getMemberCount() != null ? challenge.getMemberCount()
+                        : challenge.getMembers() != null ? challenge.getMembers().size() : 1)
                 .startDate(challenge.getStartDate())
                 .endDate(challenge.getEndDate())
                 .status(challenge.getStatus())
@@ -49,4 +51,24 @@ public class ChallengeResponse {
                 .creatorEmail(challenge.getCreatedBy().getEmail())
                 .build();
     }
+
+    public static ChallengeResponse fromSnapshot(ChallengeSnapshot challenge) {
+        return ChallengeResponse.builder()
+                .id(challenge.id())
+                .name(challenge.name())
+                .description(challenge.description())
+                .category(challenge.category())
+                .imageUrl(challenge.imageUrl())
+                .rules(challenge.rules())
+                .durationDays(challenge.durationDays())
+                .entryFee(challenge.entryFee())
+                .featured(challenge.featured())
+                .participantCount(challenge.memberCount())
+                .startDate(challenge.startDate())
+                .endDate(challenge.endDate())
+                .status(challenge.status())
+                .creatorName(challenge.creatorName())
+                .creatorEmail(challenge.creatorEmail())
+                .build();
+    }
 } 
\ No newline at end of file
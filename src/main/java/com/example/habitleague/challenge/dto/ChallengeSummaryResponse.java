@@ -29,6 +29,9 @@ public class ChallengeSummaryResponse {
     private String address;
     private String locationName;
     private Double toleranceRadius;
+    
+    // Distancia al usuario (solo en búsquedas por cercanía)
+    private Double distanceMeters;
 
     public static ChallengeSummaryResponse fromChallenge(Challenge challenge) {
         return ChallengeSummaryResponse.builder()
@@ -39,7 +42,8 @@ public class ChallengeSummaryResponse {
                 .imageUrl(challenge.getImageUrl())
                 .durationDays(challenge.getDurationDays())
                 .entryFee(challenge.getEntryFee())
-                .participantCount(challenge.getMembers() != null ? challenge.getMembers().size() : 0)
+                .participantCount(challenge.getMemberCount() != null ? challenge.getMemberCount()
+                        : challenge.getMembers() != null ? challenge.getMembers().size() : 0)
                 .featured(challenge.getFeatured())
                 .startDate(challenge.getStartDate())
                 .endDate(challenge.getEndDate())
@@ -56,7 +60,8 @@ public class ChallengeSummaryResponse {
                 .imageUrl(challenge.getImageUrl())
                 .durationDays(challenge.getDurationDays())
                 .entryFee(challenge.getEntryFee())
-                .participantCount(challenge.getMembers() != null ? challenge.getMembers().size() : 0)
+                .participantCount(challenge.getMemberCount() != null ? challenge.getMemberCount()
+                        : challenge.getMembers() != null ? challenge.getMembers().size() : 0)
                 .featured(challenge.getFeatured())
                 .startDate(challenge.getStartDate())
                 .endDate(challenge.getEndDate())
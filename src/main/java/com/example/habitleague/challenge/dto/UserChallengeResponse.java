@@ -58,7 +58,8 @@ public class UserChallengeResponse {
                 .startDate(challenge.getStartDate())
                 .endDate(challenge.getEndDate())
                 .status(challenge.getStatus())
-                .participantCount(challenge.getMembers() != null ? challenge.getMembers().size() : 0)
+                .participantCount(challenge.getMemberCount() != null ? challenge.getMemberCount()
+                        : challenge.getMembers() != null ? challenge.getMembers().size() : 0)
                 
                 // Información de la membresía
                 .membershipId(member.getId())
@@ -1,5 +1,6 @@
 package com.example.habitleague.challenge.model;
 
+import com.example.habitleague.location.model.RegisteredLocation;
 import com.example.habitleague.user.model.User;
 import jakarta.persistence.*;
 import lombok.*;
@@ -9,6 +10,10 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_challenge_member_count", columnList = "memberCount, id"),
+    @Index(name = "idx_challenge_start_date", columnList = "startDate, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -68,10 +73,21 @@ public class Challenge {
     @Builder.Default
     private Boolean prizesDistributed = false;
 
+    // Número de miembros mantenido con incrementos atómicos (ranking de populares).
+    // No se escribe desde la entidad para que un guardado con datos viejos no lo pise.
+    @Column(updatable = false)
+    @Builder.Default
+    private Integer memberCount = 0;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_id", nullable = false)
     private User createdBy;
 
+    // Ubicación registrada por el creador (desnormalizada para los listados)
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "creator_location_id")
+    private RegisteredLocation creatorLocation;
+
     @OneToMany(mappedBy = "challenge", cascade = CascadeType.ALL)
     private List<ChallengeMember> members;
 } 
\ No newline at end of file
@@ -9,7 +9,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "challenge_members")
+@Table(name = "challenge_members", indexes = {
+    @Index(name = "idx_challenge_members_user_challenge", columnList = "user_id, challenge_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
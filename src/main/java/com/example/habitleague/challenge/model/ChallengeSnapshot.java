@@ -0,0 +1,56 @@
+package com.example.habitleague.challenge.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Copia inmutable de los datos de un challenge (sin relaciones JPA), apta para caché
+ * y para compartir entre hilos
+ */
+public record ChallengeSnapshot(
+        Long id,
+        String name,
+        String description,
+        ChallengeCategory category,
+        String imageUrl,
+        String rules,
+        Integer durationDays,
+        BigDecimal entryFee,
+        Boolean featured,
+        LocalDate startDate,
+        LocalDate endDate,
+        ChallengeStatus status,
+        BigDecimal totalPricepool,
+        Integer activeParticipants,
+        Boolean prizesDistributed,
+        Integer memberCount,
+        Long creatorId,
+        String creatorName,
+        String creatorEmail) {
+
+    /**
+     * Requiere el creador cargado (o dentro de una transacción)
+     */
+    public static ChallengeSnapshot of(Challenge challenge) {
+        return new ChallengeSnapshot(
+            challenge.getId(),
+            challenge.getName(),
+            challenge.getDescription(),
+            challenge.getCategory(),
+            challenge.getImageUrl(),
+            challenge.getRules(),
+            challenge.getDurationDays(),
+            challenge.getEntryFee(),
+            challenge.getFeatured(),
+            challenge.getStartDate(),
+            challenge.getEndDate(),
+            challenge.getStatus(),
+            challenge.getTotalPricepool(),
+            challenge.getActiveParticipants(),
+            challenge.getPrizesDistributed(),
+            challenge.getMemberCount() != null ? challenge.getMemberCount() : 0,
+            challenge.getCreatedBy().getId(),
+            challenge.getCreatedBy().getFirstName() + " " + challenge.getCreatedBy().getLastName(),
+            challenge.getCreatedBy().getEmail());
+    }
+}
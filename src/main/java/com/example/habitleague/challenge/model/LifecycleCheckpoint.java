@@ -0,0 +1,55 @@
+package com.example.habitleague.challenge.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Registro (ledger) del avance del ciclo diario de un challenge para una fecha.
+ * Cada fase se confirma en la misma transacción que su trabajo, de modo que una
+ * ejecución reiniciada continúa desde la última fase completada.
+ */
+@Entity
+@Table(name = "lifecycle_checkpoints", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"challenge_id", "check_date"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LifecycleCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "challenge_id", nullable = false)
+    private Long challengeId;
+
+    @Column(name = "check_date", nullable = false)
+    private LocalDate checkDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private LifecyclePhase phase = LifecyclePhase.PENDING;
+
+    @Column
+    private Integer participantsEliminated;
+
+    @Version
+    private Long version;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
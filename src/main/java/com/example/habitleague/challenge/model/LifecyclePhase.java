@@ -0,0 +1,16 @@
+package com.example.habitleague.challenge.model;
+
+/**
+ * Fases del ciclo diario de un challenge, en el orden en que se ejecutan
+ */
+public enum LifecyclePhase {
+    PENDING,
+    EVIDENCE_CHECKED,
+    PRICEPOOL_UPDATED,
+    PRIZES_DISTRIBUTED,
+    AUDITED;
+
+    public boolean isAtLeast(LifecyclePhase other) {
+        return this.ordinal() >= other.ordinal();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.habitleague.challenge.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lease de un trabajo programado compartido entre réplicas. Solo el nodo dueño
+ * de un lease vigente ejecuta el trabajo; si deja de renovarlo, otro nodo lo toma
+ * al expirar.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Identifica la ejecución que tiene el lease; un mismo nodo puede tener varias en curso
+    @Column(length = 36)
+    private String runToken;
+
+    // Última fecha procesada completamente por el trabajo
+    @Column
+    private LocalDate lastCompletedDate;
+
+    // Ejecuciones con fallos para failedDate; se reinicia al cambiar de fecha
+    @Column
+    private LocalDate failedDate;
+
+    @Column
+    private Integer failedAttempts;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -2,14 +2,21 @@ package com.example.habitleague.challenge.repository;
 
 import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeMember;
+import com.example.habitleague.export.dto.MemberExportRow;
 import com.example.habitleague.user.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChallengeMemberRepository extends JpaRepository<ChallengeMember, Long> {
@@ -22,6 +29,13 @@ public interface ChallengeMemberRepository extends JpaRepository<ChallengeMember
     @Query("SELECT cm FROM ChallengeMember cm WHERE cm.user.id = :userId AND cm.challenge.id = :challengeId")
     Optional<ChallengeMember> findByUserIdAndChallengeId(@Param("userId") Long userId, @Param("challengeId") Long challengeId);
     
+    // Consultas de membresía (índice user_id, challenge_id)
+    @Query("SELECT COUNT(cm) > 0 FROM ChallengeMember cm WHERE cm.user.id = :userId AND cm.challenge.id = :challengeId")
+    boolean existsByUserIdAndChallengeId(@Param("userId") Long userId, @Param("challengeId") Long challengeId);
+    
+    @Query("SELECT cm.challenge.id FROM ChallengeMember cm WHERE cm.user.id = :userId")
+    List<Long> findChallengeIdsByUserId(@Param("userId") Long userId);
+    
     @Query("SELECT cm FROM ChallengeMember cm " +
            "JOIN FETCH cm.challenge c " +
            "JOIN FETCH c.createdBy " +
@@ -35,4 +49,47 @@ public interface ChallengeMemberRepository extends JpaRepository<ChallengeMember
     
     @Query("SELECT COUNT(cm) FROM ChallengeMember cm WHERE cm.challenge = :challenge AND cm.hasCompleted = true")
     int countByChallengeAndHasCompletedTrue(@Param("challenge") Challenge challenge);
-} 
\ No newline at end of file
+    
+    // Verificación diaria basada en conjuntos (una consulta por challenge, no por miembro)
+    @Query("SELECT cm.id AS memberId, cm.user.id AS userId, cm.progressDays AS progressDays " +
+           "FROM ChallengeMember cm " +
+           "WHERE cm.challenge.id = :challengeId AND cm.hasCompleted = true")
+    List<ActiveMemberView> findActiveMemberViews(@Param("challengeId") Long challengeId);
+    
+    @Query("SELECT cm.id FROM ChallengeMember cm WHERE cm.challenge.id = :challengeId")
+    List<Long> findIdsByChallengeId(@Param("challengeId") Long challengeId);
+    
+    // Verificación diaria: un UPDATE por challenge, resuelto contra el índice de días
+    // con evidencia (day_bit lo registra DayBitmapFunctionContributor)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChallengeMember cm SET cm.progressDays = cm.progressDays + 1 " +
+           "WHERE cm.challenge.id = :challengeId AND cm.hasCompleted = true " +
+           "AND cm.id IN (SELECT d.challengeMemberId FROM EvidenceDayIndex d " +
+           "WHERE d.challengeId = :challengeId AND day_bit(d.days, d.baseDate, :checkDate) = 1)")
+    int incrementProgressForMembersWithEvidence(@Param("challengeId") Long challengeId,
+                                                @Param("checkDate") LocalDate checkDate);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChallengeMember cm SET cm.hasCompleted = false " +
+           "WHERE cm.challenge.id = :challengeId AND cm.hasCompleted = true " +
+           "AND cm.id NOT IN (SELECT d.challengeMemberId FROM EvidenceDayIndex d " +
+           "WHERE d.challengeId = :challengeId AND day_bit(d.days, d.baseDate, :checkDate) = 1)")
+    int eliminateMembersWithoutEvidence(@Param("challengeId") Long challengeId,
+                                        @Param("checkDate") LocalDate checkDate);
+    
+    /**
+     * Proyección ligera de un participante activo para la verificación diaria
+     */
+    interface ActiveMemberView {
+        Long getMemberId();
+        Long getUserId();
+        Integer getProgressDays();
+    }
+
+    // Exportación en streaming: cursor de base de datos con tamaño de lote fijo, sin entidades
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.habitleague.export.dto.MemberExportRow(cm.id, cm.challenge.id, cm.user.id, " +
+           "cm.joinedAt, cm.progressDays, cm.totalPenalties, cm.paymentCompleted, cm.locationRegistered, " +
+           "cm.hasCompleted) FROM ChallengeMember cm ORDER BY cm.id")
+    Stream<MemberExportRow> streamExportRows();
+}
@@ -2,15 +2,24 @@ package com.example.habitleague.challenge.repository;
 
 import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.challenge.model.ChallengeStatus;
+import com.example.habitleague.export.dto.ChallengeExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChallengeRepository extends JpaRepository<Challenge, Long> {
@@ -21,16 +30,161 @@ public interface ChallengeRepository extends JpaRepository<Challenge, Long> {
     @Query("SELECT c FROM Challenge c WHERE c.featured = true")
     List<Challenge> findFeaturedChallenges();
     
-    @Query("SELECT c FROM Challenge c ORDER BY SIZE(c.members) DESC")
+    @Query("SELECT c FROM Challenge c ORDER BY c.memberCount DESC, c.id DESC")
     List<Challenge> findPopularChallenges(Pageable pageable);
     
+    // Variantes que traen la ubicación del creador en la misma consulta
+    @Query("SELECT c FROM Challenge c LEFT JOIN FETCH c.creatorLocation WHERE c.category = :category")
+    List<Challenge> findByCategoryWithCreatorLocation(@Param("category") ChallengeCategory category);
+    
+    @Query("SELECT c FROM Challenge c LEFT JOIN FETCH c.creatorLocation WHERE c.featured = true")
+    List<Challenge> findFeaturedWithCreatorLocation();
+    
+    @Query("SELECT c FROM Challenge c LEFT JOIN FETCH c.creatorLocation ORDER BY c.memberCount DESC, c.id DESC")
+    List<Challenge> findPopularWithCreatorLocation(Pageable pageable);
+    
+    @Query("SELECT c.id FROM Challenge c WHERE c.creatorLocation IS NULL AND c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsWithoutCreatorLocationAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Challenge c SET c.creatorLocation.id = :locationId WHERE c.id = :challengeId")
+    int updateCreatorLocation(@Param("challengeId") Long challengeId, @Param("locationId") Long locationId);
+    
+    // Un challenge anterior a la columna (NULL) toma el conteo real, que ya incluye al nuevo miembro
+    @Modifying
+    @Query("UPDATE Challenge c SET c.memberCount = CASE WHEN c.memberCount IS NULL " +
+           "THEN (SELECT COUNT(m) FROM ChallengeMember m WHERE m.challenge = c) " +
+           "ELSE c.memberCount + 1 END WHERE c.id = :challengeId")
+    int incrementMemberCount(@Param("challengeId") Long challengeId);
+    
+    @Query("SELECT c.id FROM Challenge c WHERE c.memberCount IS NULL AND c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsWithoutMemberCountAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Solo filas aún en NULL: un alta concurrente que ya fijó el contador no se pisa
+    @Modifying
+    @Query("UPDATE Challenge c SET c.memberCount = (SELECT COUNT(m) FROM ChallengeMember m WHERE m.challenge = c) " +
+           "WHERE c.id IN :challengeIds AND c.memberCount IS NULL")
+    int backfillMemberCounts(@Param("challengeIds") Collection<Long> challengeIds);
+    
+    @Query("SELECT c FROM Challenge c JOIN FETCH c.createdBy WHERE c.id = :id")
+    Optional<Challenge> findByIdWithCreator(@Param("id") Long id);
+    
     @Query("SELECT c FROM Challenge c LEFT JOIN FETCH c.members WHERE c.id = :id")
     Optional<Challenge> findByIdWithMembers(@Param("id") Long id);
     
+    @Query("SELECT c FROM Challenge c JOIN FETCH c.createdBy ORDER BY c.id")
+    List<Challenge> findAllWithCreator();
+    
     @Query("SELECT c FROM Challenge c LEFT JOIN FETCH c.members LEFT JOIN FETCH c.createdBy")
     List<Challenge> findAllWithMembersAndCreator();
     
     // Nuevo método para el sistema de pricepool
-    @Query("SELECT c FROM Challenge c WHERE c.startDate <= :date AND c.endDate >= :date AND c.prizesDistributed = false")
-    List<Challenge> findActiveChallengesForDate(@Param("date") LocalDate date);
-} 
\ No newline at end of file
+    @Query("SELECT c.id FROM Challenge c WHERE c.startDate <= :date AND c.endDate >= :date AND c.prizesDistributed = false ORDER BY c.id")
+    List<Long> findActiveChallengeIdsForDate(@Param("date") LocalDate date);
+
+    @Query("SELECT c.id FROM Challenge c ORDER BY c.id")
+    List<Long> findAllIds();
+
+    // Feed de descubrimiento: challenge + número de participantes + ubicación del creador en una sola consulta
+    String DISCOVER_ROW_SELECT =
+        "SELECT c.id AS id, c.name AS name, c.description AS description, c.category AS category, " +
+        "c.imageUrl AS imageUrl, c.durationDays AS durationDays, c.entryFee AS entryFee, " +
+        "c.featured AS featured, c.startDate AS startDate, c.endDate AS endDate, " +
+        "c.memberCount AS participantCount, " +
+        "rl.latitude AS latitude, rl.longitude AS longitude, rl.address AS address, " +
+        "rl.locationName AS locationName, rl.toleranceRadius AS toleranceRadius " +
+        "FROM Challenge c " +
+        "LEFT JOIN ChallengeMember cm ON cm.challenge = c AND cm.user = c.createdBy " +
+        "LEFT JOIN RegisteredLocation rl ON rl.challengeMember = cm ";
+
+    @Query(DISCOVER_ROW_SELECT + "ORDER BY c.id")
+    List<DiscoverRowView> findDiscoverRows();
+
+    @Query(DISCOVER_ROW_SELECT + "WHERE c.id = :id")
+    List<DiscoverRowView> findDiscoverRowsById(@Param("id") Long id);
+
+    /**
+     * Fila del feed de descubrimiento (los campos de ubicación son null si el creador no la registró)
+     */
+    interface DiscoverRowView {
+        Long getId();
+        String getName();
+        String getDescription();
+        ChallengeCategory getCategory();
+        String getImageUrl();
+        Integer getDurationDays();
+        BigDecimal getEntryFee();
+        Boolean getFeatured();
+        LocalDate getStartDate();
+        LocalDate getEndDate();
+        Integer getParticipantCount();
+        Double getLatitude();
+        Double getLongitude();
+        String getAddress();
+        String getLocationName();
+        Double getToleranceRadius();
+    }
+
+    // Catálogo con paginación por cursor (keyset): sin entidades, con filtros opcionales
+    String CATALOG_SELECT =
+        "SELECT c.id AS id, c.name AS name, c.category AS category, c.imageUrl AS imageUrl, " +
+        "c.durationDays AS durationDays, c.entryFee AS entryFee, c.featured AS featured, " +
+        "c.memberCount AS memberCount, c.startDate AS startDate, c.endDate AS endDate, c.status AS status, " +
+        "u.firstName AS creatorFirstName, u.lastName AS creatorLastName " +
+        "FROM Challenge c JOIN c.createdBy u " +
+        "WHERE (:category IS NULL OR c.category = :category) " +
+        "AND (:status IS NULL OR c.status = :status) " +
+        "AND (:minFee IS NULL OR c.entryFee >= :minFee) " +
+        "AND (:maxFee IS NULL OR c.entryFee <= :maxFee) " +
+        "AND (:startFrom IS NULL OR c.startDate >= :startFrom) " +
+        "AND (:startTo IS NULL OR c.startDate <= :startTo) ";
+
+    @Query(CATALOG_SELECT + "AND c.id > :afterId ORDER BY c.id")
+    List<CatalogRowView> findCatalogById(
+        @Param("category") ChallengeCategory category, @Param("status") ChallengeStatus status,
+        @Param("minFee") BigDecimal minFee, @Param("maxFee") BigDecimal maxFee,
+        @Param("startFrom") LocalDate startFrom, @Param("startTo") LocalDate startTo,
+        @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(CATALOG_SELECT + "AND (c.startDate > :afterDate OR (c.startDate = :afterDate AND c.id > :afterId)) " +
+           "ORDER BY c.startDate, c.id")
+    List<CatalogRowView> findCatalogByStartDate(
+        @Param("category") ChallengeCategory category, @Param("status") ChallengeStatus status,
+        @Param("minFee") BigDecimal minFee, @Param("maxFee") BigDecimal maxFee,
+        @Param("startFrom") LocalDate startFrom, @Param("startTo") LocalDate startTo,
+        @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(CATALOG_SELECT + "AND (c.memberCount < :afterCount OR (c.memberCount = :afterCount AND c.id < :afterId)) " +
+           "ORDER BY c.memberCount DESC, c.id DESC")
+    List<CatalogRowView> findCatalogByPopularity(
+        @Param("category") ChallengeCategory category, @Param("status") ChallengeStatus status,
+        @Param("minFee") BigDecimal minFee, @Param("maxFee") BigDecimal maxFee,
+        @Param("startFrom") LocalDate startFrom, @Param("startTo") LocalDate startTo,
+        @Param("afterCount") Integer afterCount, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Fila del catálogo
+     */
+    interface CatalogRowView {
+        Long getId();
+        String getName();
+        ChallengeCategory getCategory();
+        String getImageUrl();
+        Integer getDurationDays();
+        BigDecimal getEntryFee();
+        Boolean getFeatured();
+        Integer getMemberCount();
+        LocalDate getStartDate();
+        LocalDate getEndDate();
+        ChallengeStatus getStatus();
+        String getCreatorFirstName();
+        String getCreatorLastName();
+    }
+
+    // Exportación en streaming: cursor de base de datos con tamaño de lote fijo, sin entidades
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.habitleague.export.dto.ChallengeExportRow(c.id, c.name, c.category, c.status, " +
+           "c.entryFee, c.durationDays, c.startDate, c.endDate, c.featured, c.memberCount, c.totalPricepool, " +
+           "c.activeParticipants, c.prizesDistributed, c.createdBy.id) FROM Challenge c ORDER BY c.id")
+    Stream<ChallengeExportRow> streamExportRows();
+}
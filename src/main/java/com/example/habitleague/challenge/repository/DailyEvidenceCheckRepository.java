@@ -2,6 +2,8 @@ package com.example.habitleague.challenge.repository;
 
 import com.example.habitleague.challenge.model.DailyEvidenceCheck;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -13,4 +15,7 @@ public interface DailyEvidenceCheckRepository extends JpaRepository<DailyEvidenc
     boolean existsByChallengeIdAndCheckDate(Long challengeId, LocalDate checkDate);
     
     List<DailyEvidenceCheck> findByChallengeIdOrderByCheckDateDesc(Long challengeId);
+    
+    @Query("SELECT d.challengeId FROM DailyEvidenceCheck d WHERE d.checkDate = :checkDate")
+    List<Long> findChallengeIdsByCheckDate(@Param("checkDate") LocalDate checkDate);
 } 
\ No newline at end of file
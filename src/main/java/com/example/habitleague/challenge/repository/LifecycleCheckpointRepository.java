@@ -0,0 +1,22 @@
+package com.example.habitleague.challenge.repository;
+
+import com.example.habitleague.challenge.model.LifecycleCheckpoint;
+import com.example.habitleague.challenge.model.LifecyclePhase;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LifecycleCheckpointRepository extends JpaRepository<LifecycleCheckpoint, Long> {
+
+    Optional<LifecycleCheckpoint> findByChallengeIdAndCheckDate(Long challengeId, LocalDate checkDate);
+
+    @Query("SELECT cp.challengeId FROM LifecycleCheckpoint cp WHERE cp.checkDate = :date AND cp.phase = :phase")
+    List<Long> findChallengeIdsByCheckDateAndPhase(@Param("date") LocalDate date,
+                                                   @Param("phase") LifecyclePhase phase);
+}
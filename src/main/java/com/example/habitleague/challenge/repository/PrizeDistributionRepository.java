@@ -1,10 +1,16 @@
 package com.example.habitleague.challenge.repository;
 
 import com.example.habitleague.challenge.model.PrizeDistribution;
+import com.example.habitleague.export.dto.PrizeDistributionExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PrizeDistributionRepository extends JpaRepository<PrizeDistribution, Long> {
@@ -14,4 +20,11 @@ public interface PrizeDistributionRepository extends JpaRepository<PrizeDistribu
     List<PrizeDistribution> findByChallengeMemberId(Long challengeMemberId);
     
     List<PrizeDistribution> findByPaidFalse();
-} 
\ No newline at end of file
+    
+    // Exportación en streaming: cursor de base de datos con tamaño de lote fijo, sin entidades
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.habitleague.export.dto.PrizeDistributionExportRow(p.id, p.challengeId, " +
+           "p.challengeMemberId, p.prizeAmount, p.paid, p.paymentTransactionId, p.createdAt, p.paidAt) " +
+           "FROM PrizeDistribution p ORDER BY p.id")
+    Stream<PrizeDistributionExportRow> streamExportRows();
+}
@@ -0,0 +1,77 @@
+package com.example.habitleague.challenge.repository;
+
+import com.example.habitleague.challenge.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Toma el lease solo si está libre (expirado), aunque el dueño sea este mismo nodo: otra
+     * ejecución del nodo puede tenerlo todavía. Devuelve 1 si se obtuvo.
+     */
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.runToken = :runToken, " +
+           "l.expiresAt = :expiresAt, l.updatedAt = :now " +
+           "WHERE l.name = :name AND l.expiresAt <= :now")
+    int acquire(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("runToken") String runToken,
+                @Param("now") LocalDateTime now,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Crea el lease si no existe. Devuelve 1 solo al nodo cuya inserción gana; un merge de JPA
+     * sobrescribiría la fila que otro nodo acabara de crear.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, run_token, expires_at, updated_at) " +
+                   "VALUES (:name, :owner, :runToken, :expiresAt, :now) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name,
+                       @Param("owner") String owner,
+                       @Param("runToken") String runToken,
+                       @Param("now") LocalDateTime now,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = :expiresAt, l.updatedAt = :now " +
+           "WHERE l.name = :name AND l.runToken = :runToken")
+    int renew(@Param("name") String name,
+              @Param("runToken") String runToken,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.lastCompletedDate = :date " +
+           "WHERE l.name = :name AND l.runToken = :runToken")
+    int markCompleted(@Param("name") String name,
+                      @Param("runToken") String runToken,
+                      @Param("date") LocalDate date);
+
+    /**
+     * Suma una ejecución fallida para la fecha; si la fecha cambió, el contador empieza en 1
+     */
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET " +
+           "l.failedAttempts = CASE WHEN l.failedDate = :date THEN COALESCE(l.failedAttempts, 0) + 1 ELSE 1 END, " +
+           "l.failedDate = :date " +
+           "WHERE l.name = :name AND l.runToken = :runToken")
+    int recordFailure(@Param("name") String name,
+                      @Param("runToken") String runToken,
+                      @Param("date") LocalDate date);
+
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = :now, l.updatedAt = :now " +
+           "WHERE l.name = :name AND l.runToken = :runToken")
+    int release(@Param("name") String name,
+                @Param("runToken") String runToken,
+                @Param("now") LocalDateTime now);
+}
@@ -1,40 +1,168 @@
 package com.example.habitleague.challenge.schedule;
 
 import com.example.habitleague.challenge.service.ChallengeLifecycleService;
-import lombok.RequiredArgsConstructor;
+import com.example.habitleague.challenge.service.LifecyclePartitionExecutor.PartitionRunReport;
+import com.example.habitleague.challenge.service.SchedulerLeaseService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dispara el ciclo diario en un entorno con varias réplicas. Los challenges se reparten
+ * en shards y cada shard está protegido por un lease en la base de datos, de modo que
+ * un shard solo lo procesa un nodo a la vez. Un chequeo periódico toma los shards que
+ * no se completaron (por ejemplo, si el nodo que los tenía murió). Un shard con challenges
+ * fallidos se reintenta hasta un máximo de intentos por día; después se da por completado
+ * y esos challenges quedan para la recuperación de los días siguientes.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class DailyLifecycleScheduler {
-    
+
+    private static final String LEASE_PREFIX = "daily-lifecycle-shard-";
+    // Hora del cron diario; el standby no se adelanta a ella
+    private static final LocalTime DAILY_RUN_TIME = LocalTime.of(0, 5);
+
     private final ChallengeLifecycleService lifecycleService;
-    
+    private final SchedulerLeaseService leaseService;
+    private final int shards;
+    private final int maxShardsPerNode;
+    private final int maxAttempts;
+    private final Clock lifecycleClock;
+
+    public DailyLifecycleScheduler(
+            ChallengeLifecycleService lifecycleService,
+            SchedulerLeaseService leaseService,
+            Clock lifecycleClock,
+            @Value("${lifecycle.shards:1}") int shards,
+            @Value("${lifecycle.max-shards-per-node:0}") int maxShardsPerNode,
+            @Value("${lifecycle.shard.max-attempts:3}") int maxAttempts) {
+        this.lifecycleService = lifecycleService;
+        this.leaseService = leaseService;
+        this.lifecycleClock = lifecycleClock;
+        this.shards = Math.max(1, shards);
+        this.maxShardsPerNode = maxShardsPerNode > 0 ? maxShardsPerNode : this.shards;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
     /**
      * Ejecuta la verificación diaria de evidencias y gestión del pricepool
-     * Se ejecuta todos los días a las 00:05 AM
+     * Se ejecuta todos los días a las 00:05 AM (zona lifecycle.zone)
      */
-    @Scheduled(cron = "0 5 0 * * *", zone = "America/Mexico_City")
+    @Scheduled(cron = "0 5 0 * * *", zone = "${lifecycle.zone:America/Mexico_City}")
     public void runDailyLifecycleCheck() {
-        try {
-            log.info("=== INICIANDO CICLO DIARIO DE CHALLENGES ===");
-            lifecycleService.performDailyLifecycleCheck();
-            log.info("=== CICLO DIARIO COMPLETADO EXITOSAMENTE ===");
-        } catch (Exception e) {
-            log.error("=== ERROR EN CICLO DIARIO ===: {}", e.getMessage(), e);
-            // En un sistema real, aquí se enviaría una alerta o notificación
+        runShards(false);
+    }
+
+    /**
+     * Toma los shards del día anterior que siguen pendientes (standby). Antes de la hora
+     * del cron no hace nada: esos shards aún le corresponden a la ejecución programada.
+     */
+    @Scheduled(fixedDelayString = "${lifecycle.lease.standby-check-ms:300000}",
+               initialDelayString = "${lifecycle.lease.standby-check-ms:300000}")
+    public void takeOverPendingShards() {
+        if (LocalTime.now(lifecycleClock).isBefore(DAILY_RUN_TIME)) {
+            return;
         }
+        runShards(false);
     }
-    
+
     /**
      * Método de prueba para ejecutar manualmente el ciclo diario
      * (solo para desarrollo y testing)
      */
     public void runManualCheck() {
         log.info("Ejecutando verificación manual del ciclo diario");
-        runDailyLifecycleCheck();
+        runShards(true);
+    }
+
+    /**
+     * Reprocesa un rango de fechas pasadas shard por shard, cada uno bajo el mismo lease
+     * que el ciclo diario para no solaparse con él ni con otro reproceso. Los shards cuyo
+     * lease tiene otra ejecución (de este u otro nodo) no se procesan y se devuelven en el reporte.
+     */
+    public BackfillReport runBackfill(LocalDate from, LocalDate to) {
+        List<PartitionRunReport> reports = new ArrayList<>();
+        List<Integer> busyShards = new ArrayList<>();
+
+        for (int shard = 0; shard < shards; shard++) {
+            int current = shard;
+            boolean ran = leaseService.runWithLease(LEASE_PREFIX + shard, () ->
+                reports.addAll(lifecycleService.performLifecycleCheck(from, to, current, shards)));
+            if (!ran) {
+                busyShards.add(shard);
+            }
+        }
+
+        if (!busyShards.isEmpty()) {
+            log.warn("Reproceso {} - {}: shards ocupados por otra ejecución {}", from, to, busyShards);
+        }
+        return new BackfillReport(reports, busyShards);
+    }
+
+    public record BackfillReport(List<PartitionRunReport> reports, List<Integer> busyShards) {}
+
+    private void runShards(boolean force) {
+        LocalDate yesterday = LocalDate.now(lifecycleClock).minusDays(1);
+        // Cada nodo empieza por un shard distinto para repartir la carga
+        int offset = Math.floorMod(leaseService.getNodeId().hashCode(), shards);
+        int claimed = 0;
+
+        for (int i = 0; i < shards && claimed < maxShardsPerNode; i++) {
+            int shard = (offset + i) % shards;
+            String leaseName = LEASE_PREFIX + shard;
+
+            if (!force && !isPending(leaseName, yesterday)) {
+                continue;
+            }
+
+            boolean ran = leaseService.runWithLease(leaseName, yesterday, () -> runShard(shard));
+            if (ran) {
+                claimed++;
+            }
+        }
+    }
+
+    private boolean isPending(String leaseName, LocalDate date) {
+        boolean completed = leaseService.getLastCompletedDate(leaseName)
+            .map(lastCompleted -> !lastCompleted.isBefore(date))
+            .orElse(false);
+        if (completed) {
+            return false;
+        }
+        int failedAttempts = leaseService.getFailedAttempts(leaseName, date);
+        if (failedAttempts >= maxAttempts) {
+            log.debug("Shard {} agotó sus {} intentos para {}", leaseName, maxAttempts, date);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true si el shard se procesó sin challenges fallidos
+     */
+    private boolean runShard(int shard) {
+        try {
+            log.info("=== INICIANDO CICLO DIARIO DE CHALLENGES (shard {}/{}) ===", shard, shards);
+            List<PartitionRunReport> reports = lifecycleService.performDailyLifecycleCheck(shard, shards);
+            long failed = reports.stream().mapToLong(PartitionRunReport::failedCount).sum();
+            if (failed > 0) {
+                log.warn("=== CICLO DIARIO COMPLETADO CON {} CHALLENGES FALLIDOS ===", failed);
+                return false;
+            }
+            log.info("=== CICLO DIARIO COMPLETADO EXITOSAMENTE ===");
+            return true;
+        } catch (Exception e) {
+            log.error("=== ERROR EN CICLO DIARIO ===: {}", e.getMessage(), e);
+            // En un sistema real, aquí se enviaría una alerta o notificación
+            return false;
+        }
     }
-} 
\ No newline at end of file
+}
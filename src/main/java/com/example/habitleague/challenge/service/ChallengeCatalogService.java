@@ -0,0 +1,135 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.dto.ChallengeCatalogFilter;
+import com.example.habitleague.challenge.dto.ChallengeCatalogItem;
+import com.example.habitleague.challenge.dto.ChallengeCatalogPage;
+import com.example.habitleague.challenge.dto.ChallengeCatalogSort;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.repository.ChallengeRepository.CatalogRowView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Catálogo de challenges con paginación por cursor. Cada página continúa desde la última
+ * fila de la anterior (valor de orden + id) usando un índice, por lo que el coste no
+ * depende de lo profundo que se haya llegado, a diferencia de OFFSET o findAll.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChallengeCatalogService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Posición anterior a la primera fila en cada orden
+    private static final LocalDate FIRST_START_DATE = LocalDate.of(1, 1, 1);
+
+    private final ChallengeRepository challengeRepository;
+
+    @Transactional(readOnly = true)
+    public ChallengeCatalogPage getPage(ChallengeCatalogFilter filter, ChallengeCatalogSort sort,
+                                        String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        if (filter.minFee() != null && filter.maxFee() != null && filter.minFee().compareTo(filter.maxFee()) > 0) {
+            throw new IllegalArgumentException("minFee no puede ser mayor que maxFee");
+        }
+
+        Cursor position = cursor != null && !cursor.isBlank() ? Cursor.decode(cursor, sort) : null;
+        // Se pide una fila extra para saber si hay más páginas
+        PageRequest limit = PageRequest.of(0, size + 1);
+
+        List<CatalogRowView> rows = switch (sort) {
+            case ID -> challengeRepository.findCatalogById(
+                filter.category(), filter.status(), filter.minFee(), filter.maxFee(),
+                filter.startFrom(), filter.startTo(),
+                position != null ? position.id() : 0L, limit);
+            case START_DATE -> challengeRepository.findCatalogByStartDate(
+                filter.category(), filter.status(), filter.minFee(), filter.maxFee(),
+                filter.startFrom(), filter.startTo(),
+                position != null ? LocalDate.parse(position.value()) : FIRST_START_DATE,
+                position != null ? position.id() : 0L, limit);
+            case POPULARITY -> challengeRepository.findCatalogByPopularity(
+                filter.category(), filter.status(), filter.minFee(), filter.maxFee(),
+                filter.startFrom(), filter.startTo(),
+                position != null ? Integer.valueOf(position.value()) : Integer.MAX_VALUE,
+                position != null ? position.id() : Long.MAX_VALUE, limit);
+        };
+
+        boolean hasMore = rows.size() > size;
+        List<CatalogRowView> pageRows = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? Cursor.after(pageRows.get(pageRows.size() - 1), sort).encode() : null;
+
+        return ChallengeCatalogPage.builder()
+            .items(pageRows.stream().map(this::toItem).toList())
+            .nextCursor(nextCursor)
+            .hasMore(hasMore)
+            .build();
+    }
+
+    private ChallengeCatalogItem toItem(CatalogRowView row) {
+        return ChallengeCatalogItem.builder()
+            .id(row.getId())
+            .name(row.getName())
+            .category(row.getCategory())
+            .imageUrl(row.getImageUrl())
+            .durationDays(row.getDurationDays())
+            .entryFee(row.getEntryFee())
+            .featured(row.getFeatured())
+            .participantCount(row.getMemberCount() != null ? row.getMemberCount() : 0)
+            .startDate(row.getStartDate())
+            .endDate(row.getEndDate())
+            .status(row.getStatus())
+            .creatorName(row.getCreatorFirstName() + " " + row.getCreatorLastName())
+            .build();
+    }
+
+    /**
+     * Cursor opaco: orden, último valor de orden y último id (Base64 URL)
+     */
+    private record Cursor(ChallengeCatalogSort sort, String value, long id) {
+
+        static Cursor after(CatalogRowView row, ChallengeCatalogSort sort) {
+            String value = switch (sort) {
+                case ID -> "";
+                case START_DATE -> row.getStartDate().toString();
+                case POPULARITY -> String.valueOf(row.getMemberCount() != null ? row.getMemberCount() : 0);
+            };
+            return new Cursor(sort, value, row.getId());
+        }
+
+        String encode() {
+            String raw = sort.name() + "|" + value + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded, ChallengeCatalogSort expectedSort) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", -1);
+                ChallengeCatalogSort sort = ChallengeCatalogSort.valueOf(parts[0]);
+                if (parts.length != 3 || sort != expectedSort) {
+                    throw new IllegalArgumentException("El cursor no corresponde al orden solicitado");
+                }
+                Cursor cursor = new Cursor(sort, parts[1], Long.parseLong(parts[2]));
+                // Valida el valor según el orden
+                switch (sort) {
+                    case START_DATE -> LocalDate.parse(cursor.value());
+                    case POPULARITY -> Integer.parseInt(cursor.value());
+                    case ID -> { }
+                }
+                return cursor;
+            } catch (IllegalArgumentException | DateTimeException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+    }
+}
@@ -1,26 +1,46 @@
 package com.example.habitleague.challenge.service;
 
 import com.example.habitleague.achievement.service.AchievementEvaluationService;
+import com.example.habitleague.achievement.service.AchievementEvaluationService.AchievementCandidate;
 import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeMember;
+import com.example.habitleague.challenge.model.ChallengeSnapshot;
 import com.example.habitleague.challenge.model.DailyEvidenceCheck;
+import com.example.habitleague.challenge.model.LifecycleCheckpoint;
+import com.example.habitleague.challenge.model.LifecyclePhase;
 import com.example.habitleague.challenge.model.PrizeDistribution;
 import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
 import com.example.habitleague.challenge.repository.ChallengeRepository;
 import com.example.habitleague.challenge.repository.DailyEvidenceCheckRepository;
+import com.example.habitleague.challenge.repository.LifecycleCheckpointRepository;
 import com.example.habitleague.challenge.repository.PrizeDistributionRepository;
-import com.example.habitleague.evidence.repository.EvidenceRepository;
+import com.example.habitleague.challenge.service.DailyEvidenceCheckEngine.DailyEvidenceOutcome;
+import com.example.habitleague.challenge.service.LifecyclePartitionExecutor.PartitionRunReport;
+import com.example.habitleague.evidence.model.StreakCounters;
+import com.example.habitleague.evidence.service.EvidenceDayIndexService;
 import com.example.habitleague.payment.service.PaymentService;
+import com.example.habitleague.shared.event.ChallengeUpdatedEvent;
+import com.example.habitleague.shared.exception.ChallengeException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 @Service
 @RequiredArgsConstructor
@@ -30,110 +50,186 @@ public class ChallengeLifecycleService {
     
     private final ChallengeRepository challengeRepository;
     private final ChallengeMemberRepository memberRepository;
-    private final EvidenceRepository evidenceRepository;
+    private final DailyEvidenceCheckEngine evidenceCheckEngine;
+    private final EvidenceDayIndexService dayIndexService;
     private final DailyEvidenceCheckRepository checkRepository;
+    private final LifecycleCheckpointRepository checkpointRepository;
     private final PrizeDistributionRepository prizeRepository;
     private final PaymentService paymentService;
     private final AchievementEvaluationService achievementEvaluationService;
+    private final LifecyclePartitionExecutor partitionExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ChallengeSnapshotCache snapshotCache;
+    private final ApplicationEventPublisher publisher;
+    private final Clock lifecycleClock;
+    
+    @Value("${lifecycle.catchup-days:3}")
+    private int catchupDays;
     
     /**
      * Método principal que se ejecuta diariamente para verificar evidencias
-     * y gestionar el ciclo de vida de los challenges
+     * y gestionar el ciclo de vida de los challenges.
+     * Incluye los días anteriores que hayan quedado pendientes (ejecuciones perdidas
+     * o interrumpidas), hasta el máximo configurado.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PartitionRunReport> performDailyLifecycleCheck() {
+        return performDailyLifecycleCheck(0, 1);
+    }
+    
+    /**
+     * Ciclo diario restringido a un shard: solo procesa los challenges cuyo id
+     * corresponde al shard indicado (id módulo número de shards)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PartitionRunReport> performDailyLifecycleCheck(int shard, int shards) {
+        LocalDate yesterday = LocalDate.now(lifecycleClock).minusDays(1);
+        return performLifecycleCheck(yesterday.minusDays(catchupDays - 1L), yesterday, shard, shards);
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PartitionRunReport> performLifecycleCheck(LocalDate from, LocalDate to) {
+        return performLifecycleCheck(from, to, 0, 1);
+    }
+    
+    /**
+     * Ejecuta el ciclo para cada fecha del rango, en orden. Cada challenge se procesa
+     * en transacciones cortas sobre un pool acotado y se reanuda desde su último checkpoint.
      */
-    public void performDailyLifecycleCheck() {
-        LocalDate yesterday = LocalDate.now().minusDays(1);
-        log.info("Iniciando verificación diaria para fecha: {}", yesterday);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PartitionRunReport> performLifecycleCheck(LocalDate from, LocalDate to, int shard, int shards) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
+        if (!to.isBefore(LocalDate.now(lifecycleClock))) {
+            throw new IllegalArgumentException("Solo se pueden procesar fechas anteriores a hoy");
+        }
         
-        List<Challenge> activeChallenges = challengeRepository.findActiveChallengesForDate(yesterday);
-        log.info("Encontrados {} challenges activos", activeChallenges.size());
+        List<PartitionRunReport> reports = new ArrayList<>();
+        Set<Long> failedChallenges = new HashSet<>();
         
-        for (Challenge challenge : activeChallenges) {
-            try {
-                processChallenge(challenge, yesterday);
-            } catch (Exception e) {
-                log.error("Error procesando challenge {}: {}", challenge.getId(), e.getMessage(), e);
-            }
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            LocalDate checkDate = date;
+            log.info("Iniciando verificación diaria para fecha: {}", checkDate);
+            
+            List<Long> pendingChallengeIds = findPendingChallengeIds(checkDate);
+            pendingChallengeIds.removeIf(id -> Math.floorMod(id, shards) != shard);
+            // Un challenge que falló en un día anterior no avanza a los siguientes en esta ejecución
+            pendingChallengeIds.removeAll(failedChallenges);
+            log.info("Encontrados {} challenges pendientes para {}", pendingChallengeIds.size(), checkDate);
+            
+            String runName = shards > 1 ? "daily-" + checkDate + "-s" + shard : "daily-" + checkDate;
+            PartitionRunReport report = partitionExecutor.run(runName, pendingChallengeIds,
+                challengeId -> processChallenge(challengeId, checkDate));
+            
+            report.timings().stream()
+                .filter(timing -> !timing.success())
+                .forEach(timing -> failedChallenges.add(timing.key()));
+            reports.add(report);
         }
         
-        log.info("Verificación diaria completada");
+        log.info("Verificación diaria completada para {} - {}", from, to);
+        return reports;
+    }
+    
+    /**
+     * Challenges activos en la fecha cuyo ciclo aún no se ha completado
+     */
+    private List<Long> findPendingChallengeIds(LocalDate checkDate) {
+        List<Long> challengeIds = new ArrayList<>(challengeRepository.findActiveChallengeIdsForDate(checkDate));
+        challengeIds.removeAll(checkpointRepository.findChallengeIdsByCheckDateAndPhase(checkDate, LifecyclePhase.AUDITED));
+        challengeIds.removeAll(checkRepository.findChallengeIdsByCheckDate(checkDate));
+        return challengeIds;
     }
     
     /**
      * Procesa un challenge específico: verifica evidencias, actualiza pricepool 
-     * y distribuye premios si es necesario
+     * y distribuye premios si es necesario. Cada fase se confirma junto con su
+     * checkpoint, por lo que nunca se repite una fase ya completada.
      */
-    private void processChallenge(Challenge challenge, LocalDate checkDate) {
-        log.info("Procesando challenge: {} - {}", challenge.getId(), challenge.getName());
+    private void processChallenge(Long challengeId, LocalDate checkDate) {
+        LifecycleCheckpoint checkpoint = transactionTemplate.execute(status -> openCheckpoint(challengeId, checkDate));
         
-        // Verificar si ya se realizó el check para esta fecha
-        if (checkRepository.existsByChallengeIdAndCheckDate(challenge.getId(), checkDate)) {
-            log.info("Check ya realizado para challenge {} en fecha {}", challenge.getId(), checkDate);
+        if (checkpoint.getPhase() == LifecyclePhase.AUDITED) {
+            log.info("Check ya realizado para challenge {} en fecha {}", challengeId, checkDate);
             return;
         }
+        if (checkpoint.getPhase() != LifecyclePhase.PENDING) {
+            log.info("Reanudando challenge {} en fecha {} desde la fase {}", challengeId, checkDate, checkpoint.getPhase());
+        }
         
-        // 1. Verificar evidencias del día anterior
-        int eliminated = checkDailyEvidences(challenge, checkDate);
+        // 1. Verificar evidencias del día
+        checkpoint = runPhase(checkpoint, LifecyclePhase.EVIDENCE_CHECKED, (challenge, cp) ->
+            cp.setParticipantsEliminated(checkDailyEvidences(challenge, checkDate)));
         
         // 2. Actualizar pricepool
-        updatePricepool(challenge);
+        checkpoint = runPhase(checkpoint, LifecyclePhase.PRICEPOOL_UPDATED, (challenge, cp) ->
+            updatePricepool(challenge));
         
         // 3. Si el challenge terminó, distribuir premios
-        if (challenge.getEndDate().equals(checkDate)) {
-            distributePrizes(challenge);
-        }
+        checkpoint = runPhase(checkpoint, LifecyclePhase.PRIZES_DISTRIBUTED, (challenge, cp) -> {
+            if (challenge.getEndDate().equals(checkDate)) {
+                distributePrizes(challenge);
+            }
+        });
         
         // 4. Guardar registro de auditoría
-        saveDailyCheck(challenge, checkDate, eliminated);
+        runPhase(checkpoint, LifecyclePhase.AUDITED, (challenge, cp) ->
+            saveDailyCheck(challenge, checkDate, cp.getParticipantsEliminated()));
+        
+        log.info("Challenge {} procesado exitosamente para {}", challengeId, checkDate);
+    }
+    
+    /**
+     * Obtiene o crea el checkpoint del challenge para la fecha. Los días auditados
+     * antes de existir el ledger se consideran completos.
+     */
+    private LifecycleCheckpoint openCheckpoint(Long challengeId, LocalDate checkDate) {
+        return checkpointRepository.findByChallengeIdAndCheckDate(challengeId, checkDate)
+            .orElseGet(() -> checkpointRepository.save(LifecycleCheckpoint.builder()
+                .challengeId(challengeId)
+                .checkDate(checkDate)
+                .phase(checkRepository.existsByChallengeIdAndCheckDate(challengeId, checkDate)
+                    ? LifecyclePhase.AUDITED
+                    : LifecyclePhase.PENDING)
+                .build()));
+    }
+    
+    /**
+     * Ejecuta una fase y avanza el checkpoint en la misma transacción.
+     * Si la fase ya estaba completada no hace nada.
+     */
+    private LifecycleCheckpoint runPhase(LifecycleCheckpoint checkpoint, LifecyclePhase phase,
+                                         BiConsumer<Challenge, LifecycleCheckpoint> work) {
+        if (checkpoint.getPhase().isAtLeast(phase)) {
+            return checkpoint;
+        }
         
-        log.info("Challenge {} procesado exitosamente", challenge.getId());
+        return transactionTemplate.execute(status -> {
+            Challenge challenge = challengeRepository.findById(checkpoint.getChallengeId())
+                .orElseThrow(() -> new ChallengeException("Challenge no encontrado: " + checkpoint.getChallengeId()));
+            
+            work.accept(challenge, checkpoint);
+            checkpoint.setPhase(phase);
+            return checkpointRepository.save(checkpoint);
+        });
     }
     
     /**
      * Verifica las evidencias del día anterior y elimina a participantes sin evidencia
      */
     private int checkDailyEvidences(Challenge challenge, LocalDate checkDate) {
-        List<ChallengeMember> activeMembers = memberRepository
-            .findByChallengeAndHasCompletedTrue(challenge);
-            
-        int eliminated = 0;
-        LocalDateTime startOfDay = checkDate.atStartOfDay();
-        LocalDateTime endOfDay = checkDate.atTime(23, 59, 59);
+        DailyEvidenceOutcome outcome = evidenceCheckEngine.check(challenge.getId(), checkDate);
         
-        log.info("Verificando evidencias para {} participantes activos", activeMembers.size());
+        // ✅ EVALUACIÓN DE LOGRO: Racha de 7 días (solo quienes ya alcanzan la racha)
+        achievementEvaluationService.evaluateBatch(outcome.results().stream()
+            .filter(result -> result.hadEvidence()
+                && result.longestStreak() >= AchievementEvaluationService.STREAK_DAYS)
+            .map(result -> new AchievementCandidate(
+                result.userId(), challenge.getId(), false, result.longestStreak(), challenge.getDurationDays()))
+            .toList());
         
-        for (ChallengeMember member : activeMembers) {
-            boolean hasEvidence = evidenceRepository
-                .existsByChallengeMemberAndSubmittedAtBetween(
-                    member, startOfDay, endOfDay);
-                    
-            if (!hasEvidence) {
-                // Eliminar participante por falta de evidencia
-                member.setHasCompleted(false);
-                memberRepository.save(member);
-                eliminated++;
-                
-                log.warn("Eliminado participante {} del challenge {} por falta de evidencia en {}", 
-                    member.getUser().getEmail(), challenge.getId(), checkDate);
-            } else {
-                // Incrementar progreso del participante
-                member.setProgressDays(member.getProgressDays() + 1);
-                memberRepository.save(member);
-                
-                log.debug("Participante {} mantiene progreso: {} días", 
-                    member.getUser().getEmail(), member.getProgressDays());
-                
-                // ✅ EVALUACIÓN DE LOGRO: Racha de 7 días
-                achievementEvaluationService.evaluateSevenDayStreak(
-                    member.getUser().getId(), 
-                    member.getProgressDays(), 
-                    challenge.getId()
-                );
-            }
-        }
-        
-        log.info("Verificación completada: {} eliminados de {} participantes", 
-            eliminated, activeMembers.size());
-        return eliminated;
+        return outcome.eliminated();
     }
     
     /**
@@ -158,7 +254,7 @@ public class ChallengeLifecycleService {
         int activeCount = memberRepository.countByChallengeAndHasCompletedTrue(challenge);
         challenge.setActiveParticipants(activeCount);
         
-        challengeRepository.save(challenge);
+        saveAndPublish(challenge);
         
         log.info("Pricepool actualizado - Challenge {}: ${} total, {} participantes activos", 
             challenge.getId(), challenge.getTotalPricepool(), activeCount);
@@ -179,10 +275,19 @@ public class ChallengeLifecycleService {
         if (winners.isEmpty()) {
             log.warn("No hay ganadores para el challenge {}", challenge.getId());
             challenge.setPrizesDistributed(true);
-            challengeRepository.save(challenge);
+            saveAndPublish(challenge);
             return;
         }
         
+        // ✅ EVALUACIÓN DE LOGROS: Primer reto completado y Sin excusas, todos los ganadores a la vez
+        Map<Long, StreakCounters> streaks = dayIndexService.getChallengeStreaks(challenge.getId(),
+            winners.stream().map(ChallengeMember::getId).toList());
+        achievementEvaluationService.evaluateBatch(winners.stream()
+            .map(winner -> new AchievementCandidate(
+                winner.getUser().getId(), challenge.getId(), true,
+                streaks.getOrDefault(winner.getId(), StreakCounters.NONE).longest(), challenge.getDurationDays()))
+            .toList());
+        
         BigDecimal prizePerWinner = challenge.getTotalPricepool()
             .divide(BigDecimal.valueOf(winners.size()), 2, RoundingMode.HALF_UP);
             
@@ -191,19 +296,6 @@ public class ChallengeLifecycleService {
             
         for (ChallengeMember winner : winners) {
             try {
-                // ✅ EVALUACIÓN DE LOGROS: Primer reto completado y Sin excusas
-                achievementEvaluationService.evaluateFirstChallengeCompleted(
-                    winner.getUser().getId(), 
-                    challenge.getId()
-                );
-                
-                achievementEvaluationService.evaluatePerfectChallenge(
-                    winner.getUser().getId(),
-                    challenge.getId(),
-                    winner.getProgressDays(),
-                    challenge.getDurationDays()
-                );
-                
                 // Crear registro de distribución
                 PrizeDistribution distribution = PrizeDistribution.builder()
                     .challengeMemberId(winner.getId())
@@ -233,7 +325,7 @@ public class ChallengeLifecycleService {
         }
         
         challenge.setPrizesDistributed(true);
-        challengeRepository.save(challenge);
+        saveAndPublish(challenge);
         
         log.info("Distribución de premios completada para challenge {}", challenge.getId());
     }
@@ -257,6 +349,12 @@ public class ChallengeLifecycleService {
         }
     }
     
+    // Los cambios de pricepool y premios invalidan la caché de lectura al confirmarse
+    private void saveAndPublish(Challenge challenge) {
+        challengeRepository.save(challenge);
+        publisher.publishEvent(new ChallengeUpdatedEvent(challenge.getId()));
+    }
+    
     /**
      * Guarda un registro de auditoría del check diario
      */
@@ -292,14 +390,14 @@ public class ChallengeLifecycleService {
      */
     @Transactional(readOnly = true)
     public PricepoolStats getPricepoolStats(Long challengeId) {
-        Challenge challenge = challengeRepository.findById(challengeId)
+        ChallengeSnapshot challenge = snapshotCache.find(challengeId)
             .orElseThrow(() -> new RuntimeException("Challenge no encontrado"));
             
-        int activeParticipants = challenge.getActiveParticipants() != null ? 
-            challenge.getActiveParticipants() : 0;
+        int activeParticipants = challenge.activeParticipants() != null ? 
+            challenge.activeParticipants() : 0;
             
-        BigDecimal totalPrizepool = challenge.getTotalPricepool() != null ? 
-            challenge.getTotalPricepool() : BigDecimal.ZERO;
+        BigDecimal totalPrizepool = challenge.totalPricepool() != null ? 
+            challenge.totalPricepool() : BigDecimal.ZERO;
             
         BigDecimal prizePerWinner = activeParticipants > 0 ? 
             totalPrizepool.divide(BigDecimal.valueOf(activeParticipants), 2, RoundingMode.HALF_UP) : 
@@ -310,7 +408,7 @@ public class ChallengeLifecycleService {
             totalPrizepool,
             activeParticipants,
             prizePerWinner,
-            challenge.getPrizesDistributed() != null ? challenge.getPrizesDistributed() : false
+            challenge.prizesDistributed() != null ? challenge.prizesDistributed() : false
         );
     }
     
@@ -4,30 +4,38 @@ import com.example.habitleague.challenge.dto.CreateChallengeCompleteRequest;
 import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeCategory;
 import com.example.habitleague.challenge.model.ChallengeMember;
+import com.example.habitleague.challenge.model.ChallengeSnapshot;
 import com.example.habitleague.challenge.model.ChallengeStatus;
 import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
 import com.example.habitleague.challenge.repository.ChallengeRepository;
 import com.example.habitleague.shared.event.ChallengeCreatedEvent;
+import com.example.habitleague.shared.event.ChallengeDeletedEvent;
+import com.example.habitleague.shared.event.ChallengeMemberCreatedEvent;
 import com.example.habitleague.shared.event.UserJoinedChallengeEvent;
 import com.example.habitleague.shared.exception.ChallengeException;
 import com.example.habitleague.user.model.User;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ChallengeService {
 
     private final ChallengeRepository       challengeRepository;
     private final ChallengeMemberRepository challengeMemberRepository;
     private final ApplicationEventPublisher publisher;
     private final ChallengeLifecycleService lifecycleService;
+    private final MembershipService membershipService;
+    private final ChallengeSnapshotCache snapshotCache;
 
     @Transactional
     public Challenge createChallengeWithoutMember(CreateChallengeCompleteRequest request, User user) {
@@ -69,6 +77,7 @@ public class ChallengeService {
         Challenge challenge = challengeRepository.findById(challengeId)
                 .orElseThrow(() -> new ChallengeException("Challenge no encontrado"));
         challengeRepository.delete(challenge);
+        publisher.publishEvent(new ChallengeDeletedEvent(challengeId));
     }
 
 
@@ -77,7 +86,7 @@ public class ChallengeService {
         Challenge challenge = challengeRepository.findById(challengeId)
                 .orElseThrow(() -> new ChallengeException("Reto no encontrado"));
 
-        if (challengeMemberRepository.existsByUserAndChallenge(user, challenge)) {
+        if (membershipService.isMember(user.getId(), challenge.getId())) {
             throw new ChallengeException("Ya estás participando en este reto");
         }
 
@@ -99,6 +108,8 @@ public class ChallengeService {
                 .build();
 
         member = challengeMemberRepository.save(member);
+        incrementMemberCount(challenge);
+        publisher.publishEvent(new ChallengeMemberCreatedEvent(user.getId(), challenge.getId(), member.getId()));
 
         // Inicializar/actualizar pricepool cuando alguien se une
         lifecycleService.initializePricepool(challenge);
@@ -119,7 +130,7 @@ public class ChallengeService {
         Challenge challenge = challengeRepository.findById(challengeId)
                 .orElseThrow(() -> new ChallengeException("Reto no encontrado"));
 
-        if (challengeMemberRepository.existsByUserAndChallenge(user, challenge)) {
+        if (membershipService.isMember(user.getId(), challenge.getId())) {
             throw new ChallengeException("Ya estás participando en este reto");
         }
 
@@ -133,6 +144,8 @@ public class ChallengeService {
                 .build();
 
         member = challengeMemberRepository.save(member);
+        incrementMemberCount(challenge);
+        publisher.publishEvent(new ChallengeMemberCreatedEvent(user.getId(), challenge.getId(), member.getId()));
 
         // Solo publicar evento si ambos requisitos están completados
         if (paymentCompleted && locationRegistered) {
@@ -175,7 +188,7 @@ public class ChallengeService {
 
     @Transactional(readOnly = true)
     public List<Challenge> getAllChallenges() {
-        return challengeRepository.findAll();
+        return challengeRepository.findAllWithCreator();
     }
 
     @Transactional(readOnly = true)
@@ -210,6 +223,26 @@ public class ChallengeService {
                 .orElseThrow(() -> new ChallengeException("Reto no encontrado"));
     }
 
+    /**
+     * Datos del challenge desde la caché de lectura (sin relaciones)
+     */
+    public ChallengeSnapshot getChallengeSnapshot(Long id) {
+        return snapshotCache.find(id)
+                .orElseThrow(() -> new ChallengeException("Reto no encontrado"));
+    }
+
+    /**
+     * Obtiene varios challenges en una sola consulta, sin cargar sus miembros (participantCount sale de
+     * memberCount); el orden no está definido
+     */
+    @Transactional(readOnly = true)
+    public List<Challenge> getChallengesByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return challengeRepository.findAllById(ids);
+    }
+
     @Transactional(readOnly = true)
     public List<ChallengeMember> getUserChallenges(User user) {
         return challengeMemberRepository.findByUserWithChallengeAndCreator(user);
@@ -220,7 +253,7 @@ public class ChallengeService {
      */
     @Transactional(readOnly = true)
     public List<Challenge> getPopularChallengesWithLocation(int limit) {
-        return challengeRepository.findPopularChallenges(PageRequest.of(0, limit));
+        return challengeRepository.findPopularWithCreatorLocation(PageRequest.of(0, limit));
     }
 
     /**
@@ -228,7 +261,7 @@ public class ChallengeService {
      */
     @Transactional(readOnly = true)
     public List<Challenge> getChallengesByCategoryWithLocation(ChallengeCategory category) {
-        return challengeRepository.findByCategory(category);
+        return challengeRepository.findByCategoryWithCreatorLocation(category);
     }
 
     /**
@@ -236,7 +269,13 @@ public class ChallengeService {
      */
     @Transactional(readOnly = true)
     public List<Challenge> getFeaturedChallengesWithLocation() {
-        return challengeRepository.findFeaturedChallenges();
+        return challengeRepository.findFeaturedWithCreatorLocation();
+    }
+
+    // Incremento atómico en la base de datos; la entidad en memoria se ajusta para las respuestas
+    private void incrementMemberCount(Challenge challenge) {
+        challengeRepository.incrementMemberCount(challenge.getId());
+        challenge.setMemberCount((challenge.getMemberCount() != null ? challenge.getMemberCount() : 0) + 1);
     }
 
     private boolean isValidDurationDays(Integer durationDays) {
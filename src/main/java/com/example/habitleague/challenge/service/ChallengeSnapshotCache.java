@@ -0,0 +1,144 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.model.ChallengeSnapshot;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.shared.event.ChallengeCreatedEvent;
+import com.example.habitleague.shared.event.ChallengeDeletedEvent;
+import com.example.habitleague.shared.event.ChallengeMemberCreatedEvent;
+import com.example.habitleague.shared.event.ChallengeUpdatedEvent;
+import com.example.habitleague.shared.event.UserJoinedChallengeEvent;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Caché de lectura de challenges en dos niveles: una caché local acotada en tamaño y
+ * tiempo y, si existe, un nivel compartido ({@link ChallengeSnapshotSharedTier}).
+ * Las entradas se invalidan cuando se confirman los eventos que modifican el challenge;
+ * el TTL acota lo que un nodo puede tardar en ver cambios hechos en otro.
+ */
+@Service
+@Slf4j
+public class ChallengeSnapshotCache {
+
+    private final ChallengeRepository challengeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ChallengeSnapshotSharedTier sharedTier;
+    private final LoadingCache<Long, ChallengeSnapshot> localCache;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+
+    public ChallengeSnapshotCache(
+            ChallengeRepository challengeRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<ChallengeSnapshotSharedTier> sharedTier,
+            MeterRegistry meterRegistry,
+            @Qualifier("cacheLoadExecutor") Executor cacheLoadExecutor,
+            @Value("${challenge.cache.max-size:10000}") long maxSize,
+            @Value("${challenge.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.challengeRepository = challengeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.sharedTier = sharedTier.getIfAvailable();
+        this.localCache = CaffeineCacheMetrics.monitor(meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .executor(cacheLoadExecutor)
+                .buildAsync(this::load),
+            "challenge.snapshot").synchronous();
+        this.sharedHits = Counter.builder("challenge.snapshot.shared.requests")
+            .tag("result", "hit").register(meterRegistry);
+        this.sharedMisses = Counter.builder("challenge.snapshot.shared.requests")
+            .tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Datos del challenge, o vacío si no existe (las ausencias no se guardan en caché).
+     * Dentro de una transacción de escritura un fallo se lee en esa misma transacción y no
+     * se guarda: puede ver cambios sin confirmar que aún podrían deshacerse.
+     */
+    public Optional<ChallengeSnapshot> find(Long challengeId) {
+        if (challengeId == null) {
+            return Optional.empty();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ChallengeSnapshot cached = localCache.getIfPresent(challengeId);
+            return cached != null
+                ? Optional.of(cached)
+                : challengeRepository.findByIdWithCreator(challengeId).map(ChallengeSnapshot::of);
+        }
+        return Optional.ofNullable(localCache.get(challengeId));
+    }
+
+    public void evict(Long challengeId) {
+        localCache.invalidate(challengeId);
+        if (sharedTier != null) {
+            sharedTier.evict(challengeId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onChallengeCreated(ChallengeCreatedEvent event) {
+        evict(event.getChallengeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChallengeUpdated(ChallengeUpdatedEvent event) {
+        evict(event.getChallengeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChallengeDeleted(ChallengeDeletedEvent event) {
+        evict(event.getChallengeId());
+    }
+
+    // Unirse cambia el número de miembros y el pricepool
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMemberCreated(ChallengeMemberCreatedEvent event) {
+        evict(event.getChallengeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserJoined(UserJoinedChallengeEvent event) {
+        evict(event.getChallengeId());
+    }
+
+    private ChallengeSnapshot load(Long challengeId) {
+        if (sharedTier != null) {
+            Optional<ChallengeSnapshot> shared = sharedTier.get(challengeId);
+            if (shared.isPresent()) {
+                sharedHits.increment();
+                return shared.get();
+            }
+            sharedMisses.increment();
+        }
+
+        ChallengeSnapshot snapshot = transactionTemplate.execute(status ->
+            challengeRepository.findByIdWithCreator(challengeId)
+                .map(ChallengeSnapshot::of)
+                .orElse(null));
+        if (snapshot != null && sharedTier != null) {
+            sharedTier.put(snapshot);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.model.ChallengeSnapshot;
+
+import java.util.Optional;
+
+/**
+ * Segundo nivel (compartido entre nodos) de la caché de challenges. Es opcional: si no
+ * hay ningún bean que lo implemente, los fallos de la caché local van directos a la
+ * base de datos.
+ */
+public interface ChallengeSnapshotSharedTier {
+
+    Optional<ChallengeSnapshot> get(Long challengeId);
+
+    void put(ChallengeSnapshot snapshot);
+
+    void evict(Long challengeId);
+}
@@ -0,0 +1,88 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
+import com.example.habitleague.challenge.repository.ChallengeMemberRepository.ActiveMemberView;
+import com.example.habitleague.evidence.model.EvidenceDayIndex;
+import com.example.habitleague.evidence.model.StreakCounters;
+import com.example.habitleague.evidence.service.EvidenceDayIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Motor de verificación diaria de evidencias basado en conjuntos.
+ * Resuelve un challenge completo con el índice de días con evidencia: dos UPDATE por
+ * challenge (avance y eliminación) que consultan el índice en la propia sentencia.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class DailyEvidenceCheckEngine {
+
+    private final ChallengeMemberRepository memberRepository;
+    private final EvidenceDayIndexService dayIndexService;
+
+    /**
+     * Verifica las evidencias de la fecha indicada: incrementa el progreso de quienes
+     * enviaron evidencia y elimina al resto
+     */
+    public DailyEvidenceOutcome check(Long challengeId, LocalDate checkDate) {
+        // 1. Foto de los participantes activos antes de aplicar cambios
+        List<ActiveMemberView> activeMembers = memberRepository.findActiveMemberViews(challengeId);
+        if (activeMembers.isEmpty()) {
+            log.info("Challenge {} sin participantes activos para {}", challengeId, checkDate);
+            return new DailyEvidenceOutcome(0, 0, 0, List.of());
+        }
+
+        // 2. Índice de días y rachas de cada participante; se crea el que falte, porque los
+        //    UPDATE eliminan a quien no tiene fila con el día marcado
+        Map<Long, EvidenceDayIndex> indexes = dayIndexService.getChallengeIndexes(challengeId,
+            activeMembers.stream().map(ActiveMemberView::getMemberId).toList());
+
+        // 3. Aplicar progreso y eliminaciones con un UPDATE por challenge cada uno
+        int advanced = memberRepository.incrementProgressForMembersWithEvidence(challengeId, checkDate);
+        int eliminated = memberRepository.eliminateMembersWithoutEvidence(challengeId, checkDate);
+
+        if (advanced + eliminated != activeMembers.size()) {
+            log.warn("Verificación de challenge {} inconsistente: {} activos, {} avanzaron, {} eliminados",
+                challengeId, activeMembers.size(), advanced, eliminated);
+        }
+
+        // 4. Resultados por participante para la evaluación de logros
+        List<MemberDayResult> results = new ArrayList<>(activeMembers.size());
+        for (ActiveMemberView member : activeMembers) {
+            EvidenceDayIndex index = indexes.get(member.getMemberId());
+            boolean hadEvidence = index != null && index.toBitmap().isSet(checkDate);
+            StreakCounters streak = index != null ? index.toStreak() : StreakCounters.NONE;
+            int progressDays = hadEvidence ? member.getProgressDays() + 1 : member.getProgressDays();
+            results.add(new MemberDayResult(member.getMemberId(), member.getUserId(), hadEvidence, progressDays,
+                streak.longest()));
+        }
+
+        log.info("Verificación completada para challenge {} en {}: {} avanzaron, {} eliminados de {} participantes",
+            challengeId, checkDate, advanced, eliminated, activeMembers.size());
+
+        return new DailyEvidenceOutcome(activeMembers.size(), eliminated, advanced, results);
+    }
+
+    /**
+     * Resultado del día para un participante
+     */
+    public record MemberDayResult(Long memberId, Long userId, boolean hadEvidence, int progressDays,
+                                  int longestStreak) {
+    }
+
+    /**
+     * Resultado agregado de la verificación de un challenge
+     */
+    public record DailyEvidenceOutcome(int activeBefore, int eliminated, int advanced,
+                                       List<MemberDayResult> results) {
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.dto.ChallengeSummaryResponse;
+import com.example.habitleague.challenge.dto.DiscoverResponse;
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.repository.ChallengeRepository.DiscoverRowView;
+import com.example.habitleague.shared.event.ChallengeCreatedEvent;
+import com.example.habitleague.shared.event.LocationRegisteredEvent;
+import com.example.habitleague.shared.event.UserJoinedChallengeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed de descubrimiento materializado. Cada challenge se guarda en memoria ya unido a su
+ * número de participantes y a la ubicación del creador; se carga con una sola consulta y
+ * se actualiza challenge a challenge al crear, unirse o registrar una ubicación.
+ * Con la caché caliente, /discover no toca la base de datos.
+ */
+@Service
+@Slf4j
+public class DiscoverFeedService {
+
+    // Categorías que muestra la pantalla de descubrimiento
+    private static final List<ChallengeCategory> DISCOVER_CATEGORIES = List.of(
+        ChallengeCategory.MINDFULNESS, ChallengeCategory.FITNESS, ChallengeCategory.PRODUCTIVITY);
+
+    private final ChallengeRepository challengeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int popularLimit;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Map<Long, ChallengeSummaryResponse> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    // Respuesta ya ensamblada; solo es válida mientras no cambie la versión del feed
+    private final AtomicLong version = new AtomicLong();
+    private volatile FeedSnapshot snapshot;
+
+    public DiscoverFeedService(ChallengeRepository challengeRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${discover.feed.popular-limit:10}") int popularLimit) {
+        this.challengeRepository = challengeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Los listeners AFTER_COMMIT necesitan una transacción propia
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.popularLimit = popularLimit;
+    }
+
+    /**
+     * Feed completo: destacados, populares y por categoría
+     */
+    public DiscoverResponse getFeed() {
+        long currentVersion = version.get();
+        FeedSnapshot current = snapshot;
+        if (current != null && current.version() == currentVersion) {
+            return current.response();
+        }
+        if (!loaded) {
+            rebuild();
+            currentVersion = version.get();
+        }
+        DiscoverResponse response = assemble(entries.values());
+        snapshot = new FeedSnapshot(currentVersion, response);
+        return response;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onChallengeCreated(ChallengeCreatedEvent event) {
+        refreshChallenge(event.getChallengeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserJoined(UserJoinedChallengeEvent event) {
+        refreshChallenge(event.getChallengeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLocationRegistered(LocationRegisteredEvent event) {
+        refreshChallenge(event.getChallengeId());
+    }
+
+    /**
+     * Recarga un único challenge del feed (o lo elimina si ya no existe)
+     */
+    public void refreshChallenge(Long challengeId) {
+        refreshLock.lock();
+        try {
+            if (!loaded) {
+                // La primera lectura cargará el feed completo
+                return;
+            }
+            List<DiscoverRowView> rows = transactionTemplate.execute(status ->
+                challengeRepository.findDiscoverRowsById(challengeId));
+            if (rows == null || rows.isEmpty()) {
+                entries.remove(challengeId);
+            } else {
+                entries.put(challengeId, toSummary(rows.get(0)));
+            }
+            version.incrementAndGet();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Recarga completa periódica: recoge borrados, cambios de "destacado" y otros nodos
+     */
+    @Scheduled(fixedDelayString = "${discover.feed.full-refresh-ms:300000}",
+               initialDelayString = "${discover.feed.full-refresh-ms:300000}")
+    public void rebuild() {
+        refreshLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            List<DiscoverRowView> rows = transactionTemplate.execute(status ->
+                challengeRepository.findDiscoverRows());
+
+            Map<Long, ChallengeSummaryResponse> rebuilt = new ConcurrentHashMap<>();
+            for (DiscoverRowView row : rows) {
+                // Un creador tiene como mucho una ubicación por challenge; se conserva la primera fila
+                rebuilt.putIfAbsent(row.getId(), toSummary(row));
+            }
+            entries.keySet().retainAll(rebuilt.keySet());
+            entries.putAll(rebuilt);
+            loaded = true;
+            version.incrementAndGet();
+            log.debug("Feed de descubrimiento recargado: {} challenges en {} ms",
+                rebuilt.size(), System.currentTimeMillis() - start);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private DiscoverResponse assemble(Collection<ChallengeSummaryResponse> challenges) {
+        List<ChallengeSummaryResponse> byId = challenges.stream()
+            .sorted(Comparator.comparing(ChallengeSummaryResponse::getId))
+            .toList();
+
+        Map<ChallengeCategory, List<ChallengeSummaryResponse>> byCategory = new EnumMap<>(ChallengeCategory.class);
+        for (ChallengeCategory category : DISCOVER_CATEGORIES) {
+            byCategory.put(category, byId.stream()
+                .filter(challenge -> challenge.getCategory() == category)
+                .toList());
+        }
+
+        return DiscoverResponse.builder()
+            .featured(byId.stream()
+                .filter(challenge -> Boolean.TRUE.equals(challenge.getFeatured()))
+                .toList())
+            .popular(byId.stream()
+                // Mismo orden que findPopularChallenges: empates por id descendente
+                .sorted(Comparator.comparing(ChallengeSummaryResponse::getParticipantCount)
+                    .thenComparing(ChallengeSummaryResponse::getId)
+                    .reversed())
+                .limit(popularLimit)
+                .toList())
+            .byCategory(byCategory)
+            .build();
+    }
+
+    private ChallengeSummaryResponse toSummary(DiscoverRowView row) {
+        return ChallengeSummaryResponse.builder()
+            .id(row.getId())
+            .name(row.getName())
+            .description(row.getDescription())
+            .category(row.getCategory())
+            .imageUrl(row.getImageUrl())
+            .durationDays(row.getDurationDays())
+            .entryFee(row.getEntryFee())
+            .participantCount(row.getParticipantCount() != null ? row.getParticipantCount() : 0)
+            .featured(row.getFeatured())
+            .startDate(row.getStartDate())
+            .endDate(row.getEndDate())
+            .latitude(row.getLatitude())
+            .longitude(row.getLongitude())
+            .address(row.getAddress())
+            .locationName(row.getLocationName())
+            .toleranceRadius(row.getToleranceRadius())
+            .build();
+    }
+
+    private record FeedSnapshot(long version, DiscoverResponse response) {
+    }
+}
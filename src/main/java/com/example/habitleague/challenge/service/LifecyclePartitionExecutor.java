@@ -0,0 +1,150 @@
+package com.example.habitleague.challenge.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta el trabajo del ciclo diario particionado por challenge sobre el pool acotado
+ * del ciclo (lifecycleExecutor).
+ * Cada partición se ejecuta de forma aislada: el fallo o la lentitud de un challenge
+ * no detiene al resto.
+ */
+@Component
+@Slf4j
+public class LifecyclePartitionExecutor {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration timeout;
+
+    public LifecyclePartitionExecutor(
+            @Qualifier("lifecycleExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${lifecycle.partition.timeout-minutes:60}") long timeoutMinutes) {
+        this.executor = executor;
+        this.timeout = Duration.ofMinutes(timeoutMinutes);
+    }
+
+    /**
+     * Ejecuta la tarea para cada partición y devuelve los tiempos de cada una
+     */
+    public PartitionRunReport run(String runName, List<Long> partitionKeys, Consumer<Long> task) {
+        long runStart = System.nanoTime();
+        int concurrency = executor.getMaxPoolSize();
+        List<PartitionTiming> timings = new ArrayList<>(partitionKeys.size());
+
+        if (partitionKeys.isEmpty()) {
+            return new PartitionRunReport(runName, concurrency, 0, timings);
+        }
+
+        List<Future<PartitionTiming>> futures = new ArrayList<>(partitionKeys.size());
+
+        try {
+            for (Long key : partitionKeys) {
+                try {
+                    futures.add(executor.submit(() -> runPartition(key, task)));
+                } catch (TaskRejectedException e) {
+                    futures.add(CompletableFuture.completedFuture(
+                        PartitionTiming.failed(key, 0, "Cola del ciclo diario llena")));
+                }
+            }
+
+            long deadline = System.nanoTime() + timeout.toNanos();
+            for (int i = 0; i < futures.size(); i++) {
+                Long key = partitionKeys.get(i);
+                try {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    timings.add(futures.get(i).get(remaining, TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    futures.get(i).cancel(true);
+                    timings.add(PartitionTiming.failed(key, 0, "Tiempo máximo del ciclo excedido"));
+                } catch (ExecutionException e) {
+                    timings.add(PartitionTiming.failed(key, 0, e.getCause().getMessage()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Ejecución particionada '{}' interrumpida", runName);
+        } finally {
+            // El pool es compartido: solo se cancelan las particiones de esta ejecución
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        PartitionRunReport report = new PartitionRunReport(
+            runName, concurrency, (System.nanoTime() - runStart) / 1_000_000, timings);
+        logReport(report);
+        return report;
+    }
+
+    private PartitionTiming runPartition(Long key, Consumer<Long> task) {
+        long start = System.nanoTime();
+        try {
+            task.accept(key);
+            return PartitionTiming.succeeded(key, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            log.error("Error procesando partición {}: {}", key, e.getMessage(), e);
+            return PartitionTiming.failed(key, elapsed, e.getMessage());
+        }
+    }
+
+    private void logReport(PartitionRunReport report) {
+        log.info("Ciclo '{}': {} particiones ({} fallidas) en {} ms con concurrencia {} - p50 {} ms, p95 {} ms, máx {} ms",
+            report.runName(), report.timings().size(), report.failedCount(), report.totalMillis(),
+            report.concurrency(), report.percentileMillis(50), report.percentileMillis(95),
+            report.percentileMillis(100));
+
+        report.timings().stream()
+            .sorted(Comparator.comparingLong(PartitionTiming::millis).reversed())
+            .limit(5)
+            .forEach(t -> log.info("Partición {} - {} ms{}", t.key(), t.millis(),
+                t.success() ? "" : " (error: " + t.error() + ")"));
+    }
+
+    /**
+     * Tiempo y resultado de una partición
+     */
+    public record PartitionTiming(Long key, long millis, boolean success, String error) {
+
+        static PartitionTiming succeeded(Long key, long millis) {
+            return new PartitionTiming(key, millis, true, null);
+        }
+
+        static PartitionTiming failed(Long key, long millis, String error) {
+            return new PartitionTiming(key, millis, false, error);
+        }
+    }
+
+    /**
+     * Reporte de una ejecución particionada
+     */
+    public record PartitionRunReport(String runName, int concurrency, long totalMillis,
+                                     List<PartitionTiming> timings) {
+
+        public long failedCount() {
+            return timings.stream().filter(t -> !t.success()).count();
+        }
+
+        public long percentileMillis(int percentile) {
+            if (timings.isEmpty()) {
+                return 0;
+            }
+            long[] sorted = timings.stream().mapToLong(PartitionTiming::millis).sorted().toArray();
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Migración única: calcula el contador de miembros de los challenges creados antes de existir
+ * la columna. La ejecuta una sola réplica bajo un lease y, al terminar, el lease queda marcado
+ * como completado para que los siguientes arranques no vuelvan a tocar la tabla. Cada lote se
+ * confirma en su propia transacción y solo bloquea sus filas.
+ */
+@Component
+@Slf4j
+public class MemberCountBackfill {
+
+    private static final String LEASE_NAME = "migration-member-count-backfill";
+    private static final int BATCH_SIZE = 500;
+
+    private final ChallengeRepository challengeRepository;
+    private final SchedulerLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberCountBackfill(
+            ChallengeRepository challengeRepository,
+            SchedulerLeaseService leaseService,
+            PlatformTransactionManager transactionManager) {
+        this.challengeRepository = challengeRepository;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runOnce() {
+        if (leaseService.getLastCompletedDate(LEASE_NAME).isPresent()) {
+            return;
+        }
+        // Si otra réplica la está ejecutando, este nodo no hace nada
+        leaseService.runWithLease(LEASE_NAME, LocalDate.now(), () -> {
+            // Re-lectura bajo el lease: la réplica anterior pudo terminar entre la comprobación y la toma
+            if (leaseService.getLastCompletedDate(LEASE_NAME).isPresent()) {
+                return true;
+            }
+            backfill();
+            return true;
+        });
+    }
+
+    private void backfill() {
+        long afterId = 0;
+        int updated = 0;
+        while (true) {
+            long cursor = afterId;
+            BatchResult batch = transactionTemplate.execute(status -> countBatch(cursor));
+            if (batch == null || batch.lastId() == null) {
+                break;
+            }
+            afterId = batch.lastId();
+            updated += batch.updated();
+        }
+        log.info("Migración del contador de miembros completada: {} challenges actualizados", updated);
+    }
+
+    // Un alta concurrente puede fijar el contador antes que el lote; el cursor por id evita releerlo
+    private BatchResult countBatch(long afterId) {
+        List<Long> challengeIds = challengeRepository.findIdsWithoutMemberCountAfter(
+                afterId, PageRequest.of(0, BATCH_SIZE));
+        if (challengeIds.isEmpty()) {
+            return new BatchResult(null, 0);
+        }
+        int updated = challengeRepository.backfillMemberCounts(challengeIds);
+        return new BatchResult(challengeIds.get(challengeIds.size() - 1), updated);
+    }
+
+    private record BatchResult(Long lastId, int updated) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
+import com.example.habitleague.shared.event.ChallengeMemberCreatedEvent;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Consulta de membresía usuario-challenge. Cada usuario tiene en caché el conjunto
+ * ordenado de ids de challenges a los que pertenece; una respuesta positiva no toca la
+ * base de datos. Como las membresías no se eliminan, un "sí" en caché siempre es válido;
+ * un "no" se confirma con una consulta por índice, porque la unión pudo hacerse en otro nodo.
+ */
+@Service
+@Slf4j
+public class MembershipService {
+
+    private final ChallengeMemberRepository memberRepository;
+
+    private final LoadingCache<Long, JoinedChallenges> joinedByUser;
+
+    public MembershipService(
+            ChallengeMemberRepository memberRepository,
+            MeterRegistry meterRegistry,
+            @Qualifier("cacheLoadExecutor") Executor cacheLoadExecutor,
+            @Value("${membership.cache.max-size:100000}") long maxSize,
+            @Value("${membership.cache.ttl-minutes:30}") long ttlMinutes) {
+        this.memberRepository = memberRepository;
+        this.joinedByUser = CaffeineCacheMetrics.monitor(meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .executor(cacheLoadExecutor)
+                .buildAsync((Long userId) -> JoinedChallenges.of(memberRepository.findChallengeIdsByUserId(userId))),
+            "challenge.membership").synchronous();
+    }
+
+    /**
+     * Indica si el usuario ya tiene fila de membresía en el challenge
+     */
+    public boolean isMember(Long userId, Long challengeId) {
+        if (joinedByUser.get(userId).contains(challengeId)) {
+            return true;
+        }
+        if (memberRepository.existsByUserIdAndChallengeId(userId, challengeId)) {
+            // Unión hecha en otro nodo: se recarga el conjunto en la próxima consulta
+            joinedByUser.invalidate(userId);
+            return true;
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMemberCreated(ChallengeMemberCreatedEvent event) {
+        joinedByUser.invalidate(event.getUserId());
+        log.debug("Membresías en caché invalidadas para usuario {}", event.getUserId());
+    }
+
+    /**
+     * Ids de challenges de un usuario, ordenados para búsqueda binaria
+     */
+    private record JoinedChallenges(long[] challengeIds) {
+
+        static JoinedChallenges of(List<Long> ids) {
+            long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+            return new JoinedChallenges(sorted);
+        }
+
+        boolean contains(Long challengeId) {
+            return challengeId != null && Arrays.binarySearch(challengeIds, challengeId) >= 0;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.habitleague.challenge.service;
+
+import com.example.habitleague.challenge.model.SchedulerLease;
+import com.example.habitleague.challenge.repository.SchedulerLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Coordina los trabajos programados entre réplicas mediante leases en la base de datos.
+ * Un lease se toma con un UPDATE condicional (solo si expiró), se renueva mientras
+ * el trabajo se ejecuta y se libera al terminar. Si el nodo muere, el lease expira
+ * y otro nodo puede tomarlo.
+ */
+@Service
+@Slf4j
+public class SchedulerLeaseService {
+
+    private final SchedulerLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Duration ttl;
+    private final ScheduledExecutorService renewer;
+
+    public SchedulerLeaseService(
+            SchedulerLeaseRepository leaseRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${lifecycle.node-id:}") String nodeId,
+            @Value("${lifecycle.lease.ttl-seconds:300}") long ttlSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.ttl = Duration.ofSeconds(Math.max(30, ttlSeconds));
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Nodo de trabajos programados: {} (lease de {} s)", this.nodeId, this.ttl.toSeconds());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Ejecuta el trabajo solo si este nodo obtiene el lease y registra el resultado: si el
+     * trabajo termina bien, la fecha completada; si no, un intento fallido para esa fecha.
+     *
+     * @return true si este nodo ejecutó el trabajo
+     */
+    public boolean runWithLease(String leaseName, LocalDate completedDate, BooleanSupplier work) {
+        return runLeased(leaseName, runToken -> {
+            boolean completed = false;
+            try {
+                completed = work.getAsBoolean();
+            } finally {
+                boolean success = completed;
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (success) {
+                        leaseRepository.markCompleted(leaseName, runToken, completedDate);
+                    } else {
+                        leaseRepository.recordFailure(leaseName, runToken, completedDate);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Ejecuta el trabajo solo si este nodo obtiene el lease, sin registrar fechas. Mientras
+     * se ejecuta el lease se renueva periódicamente y al terminar se libera.
+     *
+     * @return true si este nodo ejecutó el trabajo
+     */
+    public boolean runWithLease(String leaseName, Runnable work) {
+        return runLeased(leaseName, runToken -> work.run());
+    }
+
+    /**
+     * Cada ejecución toma el lease con su propio token; renovar, registrar y liberar solo
+     * afectan al lease mientras lo tenga esa misma ejecución.
+     */
+    private boolean runLeased(String leaseName, Consumer<String> work) {
+        String runToken = UUID.randomUUID().toString();
+        if (!tryAcquire(leaseName, runToken)) {
+            log.debug("Lease {} en manos de otra ejecución", leaseName);
+            return false;
+        }
+
+        log.info("Lease {} obtenido por {}", leaseName, nodeId);
+        long renewEvery = Math.max(1, ttl.toSeconds() / 3);
+        ScheduledFuture<?> renewal = renewer.scheduleAtFixedRate(
+            () -> renew(leaseName, runToken), renewEvery, renewEvery, TimeUnit.SECONDS);
+
+        try {
+            work.accept(runToken);
+            return true;
+        } finally {
+            renewal.cancel(false);
+            release(leaseName, runToken);
+        }
+    }
+
+    /**
+     * Última fecha completada para el lease, si existe
+     */
+    public Optional<LocalDate> getLastCompletedDate(String leaseName) {
+        return leaseRepository.findById(leaseName).map(SchedulerLease::getLastCompletedDate);
+    }
+
+    /**
+     * Ejecuciones fallidas registradas para la fecha
+     */
+    public int getFailedAttempts(String leaseName, LocalDate date) {
+        return leaseRepository.findById(leaseName)
+            .filter(lease -> date.equals(lease.getFailedDate()) && lease.getFailedAttempts() != null)
+            .map(SchedulerLease::getFailedAttempts)
+            .orElse(0);
+    }
+
+    private boolean tryAcquire(String leaseName, String runToken) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status ->
+            leaseRepository.acquire(leaseName, nodeId, runToken, now, now.plus(ttl)));
+        if (updated != null && updated > 0) {
+            return true;
+        }
+
+        // Primer uso del lease: lo crea quien gane la inserción
+        Integer inserted = transactionTemplate.execute(status ->
+            leaseRepository.insertIfAbsent(leaseName, nodeId, runToken, now, now.plus(ttl)));
+        return inserted != null && inserted > 0;
+    }
+
+    private void renew(String leaseName, String runToken) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Integer renewed = transactionTemplate.execute(status ->
+                leaseRepository.renew(leaseName, runToken, now, now.plus(ttl)));
+            if (renewed == null || renewed == 0) {
+                log.warn("El nodo {} perdió el lease {} durante la ejecución", nodeId, leaseName);
+            }
+        } catch (Exception e) {
+            log.error("Error renovando lease {}: {}", leaseName, e.getMessage());
+        }
+    }
+
+    private void release(String leaseName, String runToken) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                leaseRepository.release(leaseName, runToken, LocalDateTime.now()));
+        } catch (Exception e) {
+            // Si no se puede liberar, el lease expira por sí solo
+            log.error("Error liberando lease {}: {}", leaseName, e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewer.shutdownNow();
+    }
+}
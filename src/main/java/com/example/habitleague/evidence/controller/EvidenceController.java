@@ -2,17 +2,23 @@ package com.example.habitleague.evidence.controller;
 
 import com.example.habitleague.evidence.dto.EvidenceResponse;
 import com.example.habitleague.evidence.dto.SubmitEvidenceRequest;
+import com.example.habitleague.evidence.service.EvidenceDayIndexService;
 import com.example.habitleague.evidence.service.EvidenceService;
+import com.example.habitleague.evidence.service.EvidenceStatusNotifier;
 import com.example.habitleague.evidence.service.EvidenceService.EvidenceStats;
 import com.example.habitleague.shared.exception.ChallengeException;
 import com.example.habitleague.user.model.User;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -24,6 +30,8 @@ import java.util.Map;
 public class EvidenceController {
 
     private final EvidenceService evidenceService;
+    private final EvidenceDayIndexService dayIndexService;
+    private final EvidenceStatusNotifier statusNotifier;
 
     /**
      * Endpoint para enviar evidencia diaria
@@ -39,32 +47,19 @@ public class EvidenceController {
                     user.getEmail(), request.getChallengeId());
 
             EvidenceResponse evidence = evidenceService.submitEvidence(request, user);
-            
-            // Determinar el estado general de la evidencia
-            boolean isFullyValid = evidence.getAiValidated() && evidence.getLocationValid();
-            String status = isFullyValid ? "APPROVED" : "REJECTED";
-            String message = isFullyValid ? 
-                "¡Evidencia enviada y aprobada exitosamente!" : 
-                "Evidencia enviada pero no cumple todos los criterios de validación";
 
+            // La validación (IA + ubicación) se realiza en segundo plano
             Map<String, Object> response = Map.of(
                 "success", true,
-                "message", message,
-                "status", status,
+                "message", "Evidencia recibida. La estamos validando",
+                "status", evidence.getStatus(),
                 "evidence", evidence,
-                "validation", Map.of(
-                    "aiValidated", evidence.getAiValidated(),
-                    "locationValid", evidence.getLocationValid(),
-                    "fullyValid", isFullyValid
-                ),
+                "statusUrl", "/api/evidences/" + evidence.getId() + "/status",
+                "eventsUrl", "/api/evidences/" + evidence.getId() + "/events",
                 "nextSubmission", "Podrás enviar tu próxima evidencia mañana"
             );
 
-            if (isFullyValid) {
-                return ResponseEntity.ok(response);
-            } else {
-                return ResponseEntity.ok(response); // 200 pero con estado de rechazo
-            }
+            return ResponseEntity.accepted().body(response);
 
         } catch (ChallengeException e) {
             log.warn("Error de challenge al enviar evidencia: {}", e.getMessage());
@@ -83,6 +78,56 @@ public class EvidenceController {
         }
     }
 
+    /**
+     * Consultar el estado de validación de una evidencia (polling)
+     */
+    @GetMapping("/{evidenceId}/status")
+    public ResponseEntity<Map<String, Object>> getEvidenceStatus(
+            @PathVariable Long evidenceId,
+            @AuthenticationPrincipal User user) {
+        
+        try {
+            EvidenceResponse evidence = evidenceService.getUserEvidence(evidenceId, user);
+            return ResponseEntity.ok(Map.of(
+                "evidenceId", evidence.getId(),
+                "status", evidence.getStatus(),
+                "final", evidence.getStatus().isFinal(),
+                "validation", Map.of(
+                    "aiValidated", evidence.getAiValidated(),
+                    "locationValid", evidence.getLocationValid()
+                ),
+                "evidence", evidence
+            ));
+        } catch (ChallengeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", e.getMessage(),
+                "type", "CHALLENGE_ERROR"
+            ));
+        }
+    }
+
+    /**
+     * Suscribirse al veredicto de una evidencia (Server-Sent Events). Se envía un único
+     * evento "status" cuando la validación termina.
+     */
+    @GetMapping(value = "/{evidenceId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeEvidenceStatus(
+            @PathVariable Long evidenceId,
+            @AuthenticationPrincipal User user) {
+        
+        EvidenceResponse evidence = evidenceService.getUserEvidence(evidenceId, user);
+        SseEmitter emitter = statusNotifier.subscribe(evidenceId);
+        
+        // Si terminó antes de suscribirse, se responde de inmediato
+        EvidenceResponse current = evidence.getStatus().isFinal()
+            ? evidence
+            : evidenceService.getUserEvidence(evidenceId, user);
+        if (current.getStatus().isFinal()) {
+            statusNotifier.send(emitter, current);
+        }
+        return emitter;
+    }
+
     /**
      * Obtener todas las evidencias del usuario
      */
@@ -198,6 +243,44 @@ public class EvidenceController {
         }
     }
 
+    /**
+     * Regenera el índice de días con evidencia a partir de la tabla de evidencias
+     * (todos los challenges o uno específico; solo administradores)
+     */
+    @PostMapping("/admin/rebuild-day-index")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildDayIndex(
+            @RequestParam(required = false) Long challengeId) {
+        
+        try {
+            List<Long> challengeIds = challengeId != null
+                ? List.of(challengeId)
+                : dayIndexService.findAllChallengeIds();
+            
+            int members = 0;
+            for (Long id : challengeIds) {
+                members += dayIndexService.rebuild(id);
+            }
+            
+            return ResponseEntity.ok(Map.of(
+                "message", "Índice de días regenerado",
+                "challenges", challengeIds.size(),
+                "members", members
+            ));
+        } catch (ChallengeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", e.getMessage(),
+                "type", "CHALLENGE_ERROR"
+            ));
+        } catch (Exception e) {
+            log.error("Error regenerando índice de días: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Error regenerando índice de días",
+                "type", "INTERNAL_ERROR"
+            ));
+        }
+    }
+
     /**
      * Endpoint de salud para verificar que el servicio de evidencias funciona
      */
@@ -208,7 +291,7 @@ public class EvidenceController {
             "status", "UP",
             "timestamp", System.currentTimeMillis(),
             "features", List.of(
-                "AI Validation (Simulated 50% success)",
+                "AI Validation (Simulated 50% success, asynchronous)",
                 "Location Verification",
                 "Daily Evidence Submission",
                 "Evidence Statistics"
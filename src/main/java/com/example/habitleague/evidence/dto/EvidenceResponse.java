@@ -1,6 +1,7 @@
 package com.example.habitleague.evidence.dto;
 
 import com.example.habitleague.evidence.model.Evidence;
+import com.example.habitleague.evidence.model.EvidenceStatus;
 import lombok.Builder;
 import lombok.Data;
 
@@ -15,7 +16,10 @@ public class EvidenceResponse {
     private Double latitude;
     private Double longitude;
     private Boolean locationValid;
+    private EvidenceStatus status;
+    private Long duplicateOfEvidenceId;
     private LocalDateTime submittedAt;
+    private LocalDateTime validatedAt;
     private Long challengeId;
     private String challengeName;
 
@@ -27,7 +31,10 @@ public class EvidenceResponse {
                 .latitude(evidence.getLatitude())
                 .longitude(evidence.getLongitude())
                 .locationValid(evidence.getLocationValid())
+                .status(evidence.getStatus())
+                .duplicateOfEvidenceId(evidence.getDuplicateOfEvidenceId())
                 .submittedAt(evidence.getSubmittedAt())
+                .validatedAt(evidence.getValidatedAt())
                 .challengeId(evidence.getChallengeMember().getChallenge().getId())
                 .challengeName(evidence.getChallengeMember().getChallenge().getName())
                 .build();
@@ -0,0 +1,140 @@
+package com.example.habitleague.evidence.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Mapa de bits de días con evidencia: el bit i corresponde al día {@code baseDate + i}.
+ * Un challenge de un año ocupa 46 bytes, por lo que las consultas de "envió hoy",
+ * racha y días perdidos se resuelven en memoria sin recorrer la tabla de evidencias.
+ */
+public final class DayBitmap {
+
+    private LocalDate baseDate;
+    private byte[] bits;
+
+    public DayBitmap(LocalDate baseDate, byte[] bits) {
+        this.baseDate = baseDate;
+        this.bits = bits != null ? bits : new byte[0];
+    }
+
+    public static DayBitmap empty(LocalDate baseDate) {
+        return new DayBitmap(baseDate, new byte[0]);
+    }
+
+    public LocalDate getBaseDate() {
+        return baseDate;
+    }
+
+    public byte[] toByteArray() {
+        return bits;
+    }
+
+    public boolean isSet(LocalDate date) {
+        long offset = ChronoUnit.DAYS.between(baseDate, date);
+        if (offset < 0 || offset >= (long) bits.length * 8) {
+            return false;
+        }
+        return (bits[(int) (offset >> 3)] & (1 << (offset & 7))) != 0;
+    }
+
+    /**
+     * Marca el día. Si es anterior a la fecha base, el mapa se desplaza.
+     *
+     * @return true si el día no estaba marcado
+     */
+    public boolean set(LocalDate date) {
+        if (date.isBefore(baseDate)) {
+            rebase(date);
+        }
+        if (isSet(date)) {
+            return false;
+        }
+        int offset = (int) ChronoUnit.DAYS.between(baseDate, date);
+        int index = offset >> 3;
+        if (index >= bits.length) {
+            bits = Arrays.copyOf(bits, index + 1);
+        }
+        bits[index] |= (byte) (1 << (offset & 7));
+        return true;
+    }
+
+    /**
+     * Días consecutivos con evidencia que terminan en la fecha indicada. Si ese día
+     * aún no tiene evidencia, la racha se cuenta hasta el día anterior.
+     */
+    public int currentStreak(LocalDate asOf) {
+        LocalDate day = isSet(asOf) ? asOf : asOf.minusDays(1);
+        int streak = 0;
+        while (!day.isBefore(baseDate) && isSet(day)) {
+            streak++;
+            day = day.minusDays(1);
+        }
+        return streak;
+    }
+
+    /**
+     * Racha más larga de días consecutivos con evidencia
+     */
+    public int longestStreak() {
+        int longest = 0;
+        int run = 0;
+        for (int i = 0; i < bits.length * 8; i++) {
+            if ((bits[i >> 3] & (1 << (i & 7))) != 0) {
+                longest = Math.max(longest, ++run);
+            } else {
+                run = 0;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Último día marcado, o null si no hay ninguno
+     */
+    public LocalDate lastSetDay() {
+        for (int i = bits.length * 8 - 1; i >= 0; i--) {
+            if ((bits[i >> 3] & (1 << (i & 7))) != 0) {
+                return baseDate.plusDays(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Días sin evidencia en el rango [from, to]
+     */
+    public int missedDays(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return 0;
+        }
+        int missed = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (!isSet(day)) {
+                missed++;
+            }
+        }
+        return missed;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (byte b : bits) {
+            count += Integer.bitCount(b & 0xFF);
+        }
+        return count;
+    }
+
+    private void rebase(LocalDate newBase) {
+        int shift = (int) ChronoUnit.DAYS.between(newBase, baseDate);
+        DayBitmap shifted = new DayBitmap(newBase, new byte[0]);
+        for (int i = 0; i < bits.length * 8; i++) {
+            if ((bits[i >> 3] & (1 << (i & 7))) != 0) {
+                shifted.set(newBase.plusDays((long) i + shift));
+            }
+        }
+        this.baseDate = newBase;
+        this.bits = shifted.bits;
+    }
+}
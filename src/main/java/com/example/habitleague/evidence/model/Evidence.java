@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "evidences")
+@Table(name = "evidences", indexes = {
+    @Index(name = "idx_evidences_member_submitted_at", columnList = "challenge_member_id, submittedAt"),
+    @Index(name = "idx_evidences_status_submitted_at", columnList = "status, submittedAt"),
+    @Index(name = "idx_evidences_image_hash", columnList = "imageHash")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -25,6 +29,14 @@ public class Evidence {
     @Column(nullable = false)
     private String imageUrl;
 
+    // SHA-256 de la URL normalizada de la imagen
+    @Column(length = 64)
+    private String imageHash;
+
+    // Evidencia anterior (de otro día) con la misma imagen; señal de posible fraude
+    @Column
+    private Long duplicateOfEvidenceId;
+
     @Column(nullable = false)
     private Boolean aiValidated;
 
@@ -37,10 +49,23 @@ public class Evidence {
     @Column(nullable = false)
     private Boolean locationValid;
 
+    // Nulo en evidencias anteriores a la validación asíncrona (se completa al arrancar)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    @Builder.Default
+    private EvidenceStatus status = EvidenceStatus.PENDING;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime submittedAt;
 
+    @Column
+    private LocalDateTime validatedAt;
+
+    // Momento en que un nodo tomó la validación; otro solo la retoma si la toma caducó
+    @Column
+    private LocalDateTime validationClaimedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "challenge_member_id", nullable = false)
     private ChallengeMember challengeMember;
@@ -0,0 +1,98 @@
+package com.example.habitleague.evidence.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Índice precalculado de los días con evidencia de un participante.
+ * Se mantiene al enviar evidencias y se puede regenerar a partir de la tabla de evidencias.
+ */
+@Entity
+@Table(name = "evidence_day_index", indexes = {
+    @Index(name = "idx_evidence_day_index_challenge", columnList = "challenge_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EvidenceDayIndex {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "challenge_member_id", nullable = false, unique = true)
+    private Long challengeMemberId;
+
+    @Column(name = "challenge_id", nullable = false)
+    private Long challengeId;
+
+    // Día que corresponde al primer bit
+    @Column(nullable = false)
+    private LocalDate baseDate;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private byte[] days = new byte[0];
+
+    // Racha que termina en lastEvidenceDate y racha más larga. Se actualizan al marcar cada
+    // día; en filas anteriores a estos contadores son null y se calculan desde el mapa
+    private Integer currentStreak;
+
+    private Integer longestStreak;
+
+    private LocalDate lastEvidenceDate;
+
+    @Version
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public DayBitmap toBitmap() {
+        return new DayBitmap(baseDate, days);
+    }
+
+    public void apply(DayBitmap bitmap) {
+        this.baseDate = bitmap.getBaseDate();
+        this.days = bitmap.toByteArray();
+    }
+
+    public boolean hasStreaks() {
+        return currentStreak != null && longestStreak != null;
+    }
+
+    /**
+     * Actualiza las rachas tras marcar {@code date} en el mapa. El caso normal (día
+     * siguiente al último) es O(1); un día antiguo o una fila sin contadores recalcula.
+     */
+    public void recordDay(LocalDate date) {
+        if (!hasStreaks() || lastEvidenceDate == null || !date.isAfter(lastEvidenceDate)) {
+            recomputeStreaks();
+            return;
+        }
+        currentStreak = date.equals(lastEvidenceDate.plusDays(1)) ? currentStreak + 1 : 1;
+        longestStreak = Math.max(longestStreak, currentStreak);
+        lastEvidenceDate = date;
+    }
+
+    public void recomputeStreaks() {
+        DayBitmap bitmap = toBitmap();
+        this.lastEvidenceDate = bitmap.lastSetDay();
+        this.currentStreak = lastEvidenceDate != null ? bitmap.currentStreak(lastEvidenceDate) : 0;
+        this.longestStreak = bitmap.longestStreak();
+    }
+
+    public StreakCounters toStreak() {
+        return new StreakCounters(
+            currentStreak != null ? currentStreak : 0,
+            longestStreak != null ? longestStreak : 0,
+            lastEvidenceDate);
+    }
+}
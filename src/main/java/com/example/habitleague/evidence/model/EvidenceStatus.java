@@ -0,0 +1,15 @@
+package com.example.habitleague.evidence.model;
+
+/**
+ * Estado de validación de una evidencia. Se crea en PENDING y la validación
+ * asíncrona (IA + ubicación) la deja en APPROVED o REJECTED.
+ */
+public enum EvidenceStatus {
+    PENDING,
+    APPROVED,
+    REJECTED;
+
+    public boolean isFinal() {
+        return this != PENDING;
+    }
+}
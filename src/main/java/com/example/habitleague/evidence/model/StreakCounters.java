@@ -0,0 +1,22 @@
+package com.example.habitleague.evidence.model;
+
+import java.time.LocalDate;
+
+/**
+ * Rachas de un participante: la que termina en el último día con evidencia y la más larga
+ */
+public record StreakCounters(int current, int longest, LocalDate lastEvidenceDate) {
+
+    public static final StreakCounters NONE = new StreakCounters(0, 0, null);
+
+    /**
+     * Racha vigente en la fecha indicada: sigue abierta si el último día con evidencia
+     * es esa fecha o la anterior
+     */
+    public int currentAsOf(LocalDate asOf) {
+        if (lastEvidenceDate == null || lastEvidenceDate.isBefore(asOf.minusDays(1))) {
+            return 0;
+        }
+        return current;
+    }
+}
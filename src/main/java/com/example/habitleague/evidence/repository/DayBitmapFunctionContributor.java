@@ -0,0 +1,32 @@
+package com.example.habitleague.evidence.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra {@code day_bit(days, base_date, date)} para consultas JPQL: 1 si el mapa de
+ * días (mismo formato que {@link com.example.habitleague.evidence.model.DayBitmap}: el bit
+ * i es el bit menos significativo primero del byte i / 8) tiene marcada la fecha, 0 si no.
+ * Permite que la verificación diaria resuelva quién envió evidencia dentro del UPDATE.
+ */
+public class DayBitmapFunctionContributor implements FunctionContributor {
+
+    // Postgres numera los bits de bytea igual que DayBitmap (get_bit)
+    private static final String POSTGRES_PATTERN =
+        "(case when cast(?3 as date) - ?2 between 0 and octet_length(?1) * 8 - 1 " +
+        "then get_bit(?1, cast(?3 as date) - ?2) else 0 end)";
+
+    // H2 (desarrollo y tests) usa la misma numeración en BITGET sobre binarios
+    private static final String H2_PATTERN =
+        "(case when datediff(day, ?2, ?3) between 0 and octet_length(?1) * 8 - 1 " +
+        "then case when bitget(?1, datediff(day, ?2, ?3)) then 1 else 0 end else 0 end)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        String pattern = functionContributions.getDialect() instanceof H2Dialect ? H2_PATTERN : POSTGRES_PATTERN;
+        functionContributions.getFunctionRegistry().registerPattern("day_bit", pattern,
+            functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.INTEGER));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.habitleague.evidence.repository;
+
+import com.example.habitleague.evidence.model.EvidenceDayIndex;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EvidenceDayIndexRepository extends JpaRepository<EvidenceDayIndex, Long> {
+
+    Optional<EvidenceDayIndex> findByChallengeMemberId(Long challengeMemberId);
+
+    /**
+     * Bloquea la fila del participante para serializar sus envíos de evidencia
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM EvidenceDayIndex d WHERE d.challengeMemberId = :memberId")
+    Optional<EvidenceDayIndex> findByChallengeMemberIdForUpdate(@Param("memberId") Long memberId);
+
+    List<EvidenceDayIndex> findByChallengeId(Long challengeId);
+
+    /**
+     * Indica si alguna fila del challenge es anterior a los contadores de racha
+     */
+    @Query("SELECT COUNT(d) > 0 FROM EvidenceDayIndex d WHERE d.challengeId = :challengeId " +
+           "AND (d.currentStreak IS NULL OR d.longestStreak IS NULL)")
+    boolean existsWithoutStreaks(@Param("challengeId") Long challengeId);
+
+    /**
+     * Bloquea las filas de un challenge (regeneración del índice frente a envíos concurrentes)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM EvidenceDayIndex d WHERE d.challengeId = :challengeId ORDER BY d.challengeMemberId")
+    List<EvidenceDayIndex> findByChallengeIdForUpdate(@Param("challengeId") Long challengeId);
+
+    /**
+     * Crea la fila vacía del participante si no existe. Devuelve 1 solo a la transacción cuya
+     * inserción gana; las demás esperan a que esa confirme y reciben 0, sin violar la
+     * restricción única.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO evidence_day_index (challenge_member_id, challenge_id, base_date, days, version, updated_at) " +
+                   "VALUES (:memberId, :challengeId, :baseDate, :days, 0, :now) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("memberId") Long memberId,
+                       @Param("challengeId") Long challengeId,
+                       @Param("baseDate") LocalDate baseDate,
+                       @Param("days") byte[] days,
+                       @Param("now") LocalDateTime now);
+}
@@ -2,11 +2,24 @@ package com.example.habitleague.evidence.repository;
 
 import com.example.habitleague.challenge.model.ChallengeMember;
 import com.example.habitleague.evidence.model.Evidence;
+import com.example.habitleague.evidence.model.EvidenceStatus;
+import com.example.habitleague.export.dto.EvidenceExportRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EvidenceRepository extends JpaRepository<Evidence, Long> {
@@ -16,4 +29,69 @@ public interface EvidenceRepository extends JpaRepository<Evidence, Long> {
         LocalDateTime end
     );
     List<Evidence> findByChallengeMember_User_Id(Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT e.id FROM Evidence e WHERE e.status = :status AND e.submittedAt < :before ORDER BY e.submittedAt")
+    List<Long> findIdsByStatusSubmittedBefore(@Param("status") EvidenceStatus status,
+                                              @Param("before") LocalDateTime before,
+                                              Pageable pageable);
+
+    // Evidencias anteriores con la misma imagen (detección de duplicados)
+    @Query("SELECT e.id FROM Evidence e WHERE e.imageHash = :imageHash AND e.submittedAt < :before " +
+           "ORDER BY e.submittedAt")
+    List<Long> findIdsByImageHashSubmittedBefore(@Param("imageHash") String imageHash,
+                                                 @Param("before") LocalDateTime before,
+                                                 Pageable pageable);
+
+    /**
+     * Toma la validación de una evidencia PENDING si nadie la tiene o si la toma anterior
+     * caducó. Devuelve 1 solo a quien la toma.
+     */
+    @Modifying
+    @Query("UPDATE Evidence e SET e.validationClaimedAt = :now " +
+           "WHERE e.id = :id AND e.status = com.example.habitleague.evidence.model.EvidenceStatus.PENDING " +
+           "AND (e.validationClaimedAt IS NULL OR e.validationClaimedAt < :expiredBefore)")
+    int claimForValidation(@Param("id") Long id,
+                           @Param("now") LocalDateTime now,
+                           @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    // Suelta la toma tras un error para que el barrido pueda reintentar sin esperar a que caduque
+    @Modifying
+    @Query("UPDATE Evidence e SET e.validationClaimedAt = NULL " +
+           "WHERE e.id = :id AND e.status = com.example.habitleague.evidence.model.EvidenceStatus.PENDING")
+    int releaseValidationClaim(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Evidence e WHERE e.id = :id")
+    Optional<Evidence> findByIdForUpdate(@Param("id") Long id);
+
+    // Completa el estado de las evidencias validadas antes de existir el campo
+    @Modifying
+    @Query("UPDATE Evidence e SET e.status = CASE WHEN e.aiValidated = true AND e.locationValid = true " +
+           "THEN com.example.habitleague.evidence.model.EvidenceStatus.APPROVED " +
+           "ELSE com.example.habitleague.evidence.model.EvidenceStatus.REJECTED END " +
+           "WHERE e.status IS NULL")
+    int backfillLegacyStatus();
+
+    // Fechas de envío usadas para construir el índice de días con evidencia
+    @Query("SELECT e.submittedAt FROM Evidence e WHERE e.challengeMember.id = :memberId")
+    List<LocalDateTime> findSubmittedAtByMemberId(@Param("memberId") Long memberId);
+
+    @Query("SELECT e.challengeMember.id AS memberId, e.submittedAt AS submittedAt FROM Evidence e " +
+           "WHERE e.challengeMember.challenge.id = :challengeId")
+    List<SubmissionView> findSubmissionsByChallengeId(@Param("challengeId") Long challengeId);
+
+    /**
+     * Proyección mínima de un envío de evidencia
+     */
+    interface SubmissionView {
+        Long getMemberId();
+        LocalDateTime getSubmittedAt();
+    }
+
+    // Exportación en streaming: cursor de base de datos con tamaño de lote fijo, sin entidades
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.habitleague.export.dto.EvidenceExportRow(e.id, e.challengeMember.id, e.imageUrl, " +
+           "e.status, e.aiValidated, e.locationValid, e.latitude, e.longitude, e.submittedAt, e.validatedAt, " +
+           "e.duplicateOfEvidenceId) FROM Evidence e ORDER BY e.id")
+    Stream<EvidenceExportRow> streamExportRows();
+}
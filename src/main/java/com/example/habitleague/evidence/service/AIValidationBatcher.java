@@ -0,0 +1,223 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agrupa las validaciones de IA concurrentes por categoría. Un lote se envía al
+ * modelo cuando alcanza el tamaño máximo o cuando vence la ventana desde su primera
+ * imagen; cada llamador recibe su resultado en su propio CompletableFuture.
+ */
+@Component
+@Slf4j
+public class AIValidationBatcher {
+
+    private final ImageValidationBackend backend;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final int maxPending;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<ChallengeCategory, OpenBatch> openBatches = new EnumMap<>(ChallengeCategory.class);
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService backendExecutor;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public AIValidationBatcher(
+            ImageValidationBackend backend,
+            MeterRegistry meterRegistry,
+            @Value("${evidence.ai.batch.max-size:16}") int maxBatchSize,
+            @Value("${evidence.ai.batch.window-ms:50}") long windowMillis,
+            @Value("${evidence.ai.batch.max-pending:1000}") int maxPending,
+            @Value("${evidence.ai.batch.concurrency:2}") int concurrency) {
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.window = Duration.ofMillis(Math.max(0, windowMillis));
+        this.maxPending = maxPending;
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemon("ai-batch-timer"));
+        this.backendExecutor = Executors.newFixedThreadPool(Math.max(1, concurrency), daemon("ai-batch"));
+        this.queueWait = Timer.builder("evidence.ai.queue.wait")
+            .description("Tiempo que una imagen espera en la ventana antes de enviarse al modelo")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.rejected = Counter.builder("evidence.ai.rejected")
+            .description("Validaciones rechazadas por exceder el máximo de pendientes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Encola una imagen. El futuro falla con RejectedExecutionException si hay
+     * demasiadas validaciones pendientes.
+     */
+    public CompletableFuture<Boolean> submit(ChallengeCategory category, String imageUrl) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                new RejectedExecutionException("Demasiadas validaciones de IA pendientes"));
+        }
+
+        Request request = new Request(imageUrl, new CompletableFuture<>(), System.nanoTime());
+        List<Request> full = null;
+
+        lock.lock();
+        try {
+            OpenBatch batch = openBatches.get(category);
+            if (batch == null) {
+                batch = new OpenBatch();
+                OpenBatch scheduled = batch;
+                batch.timeout = timer.schedule(() -> flushOnTimeout(category, scheduled),
+                    window.toMillis(), TimeUnit.MILLISECONDS);
+                openBatches.put(category, batch);
+            }
+            batch.requests.add(request);
+            if (batch.requests.size() >= maxBatchSize) {
+                openBatches.remove(category);
+                batch.timeout.cancel(false);
+                full = batch.requests;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            dispatch(category, full);
+        }
+        return request.result();
+    }
+
+    /**
+     * Valida un lote directamente, sin ventana
+     */
+    public List<Boolean> validateNow(ChallengeCategory category, List<String> imageUrls) {
+        if (imageUrls.isEmpty()) {
+            return List.of();
+        }
+        recordBatch(category, imageUrls.size());
+        return callBackend(category, imageUrls);
+    }
+
+    private void flushOnTimeout(ChallengeCategory category, OpenBatch batch) {
+        lock.lock();
+        try {
+            // El lote pudo haberse enviado ya por tamaño
+            if (openBatches.get(category) != batch) {
+                return;
+            }
+            openBatches.remove(category);
+        } finally {
+            lock.unlock();
+        }
+        dispatch(category, batch.requests);
+    }
+
+    private void dispatch(ChallengeCategory category, List<Request> requests) {
+        long now = System.nanoTime();
+        for (Request request : requests) {
+            queueWait.record(now - request.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        recordBatch(category, requests.size());
+
+        try {
+            backendExecutor.execute(() -> runBatch(category, requests));
+        } catch (RejectedExecutionException e) {
+            complete(requests, null, e);
+        }
+    }
+
+    private void runBatch(ChallengeCategory category, List<Request> requests) {
+        List<String> urls = requests.stream().map(Request::imageUrl).toList();
+        try {
+            complete(requests, callBackend(category, urls), null);
+        } catch (Exception e) {
+            log.error("Error validando lote de {} imágenes ({}): {}", urls.size(), category, e.getMessage());
+            complete(requests, null, e);
+        }
+    }
+
+    private List<Boolean> callBackend(ChallengeCategory category, List<String> urls) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<Boolean> results = backend.validateBatch(category, urls);
+            if (results.size() != urls.size()) {
+                throw new IllegalStateException("El modelo devolvió " + results.size()
+                    + " resultados para " + urls.size() + " imágenes");
+            }
+            return results;
+        } finally {
+            sample.stop(Timer.builder("evidence.ai.backend.latency")
+                .tag("category", category.name())
+                .register(meterRegistry));
+        }
+    }
+
+    private void complete(List<Request> requests, List<Boolean> results, Throwable error) {
+        pending.addAndGet(-requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (error != null) {
+                requests.get(i).result().completeExceptionally(error);
+            } else {
+                requests.get(i).result().complete(results.get(i));
+            }
+        }
+    }
+
+    private void recordBatch(ChallengeCategory category, int size) {
+        DistributionSummary.builder("evidence.ai.batch.size")
+            .description("Imágenes por llamada al modelo")
+            .tag("category", category.name())
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(size);
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+        backendExecutor.shutdownNow();
+    }
+
+    private static final class OpenBatch {
+        private final List<Request> requests = new ArrayList<>();
+        private ScheduledFuture<?> timeout;
+    }
+
+    private record Request(String imageUrl, CompletableFuture<Boolean> result, long enqueuedAt) {
+    }
+}
@@ -1,44 +1,125 @@
 package com.example.habitleague.evidence.service;
 
 import com.example.habitleague.challenge.model.ChallengeCategory;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AIValidationService {
 
+    private final AIValidationBatcher batcher;
+
+    // Resultados por (huella de imagen, categoría); los envíos repetidos no llaman al modelo
+    private final AsyncCache<ValidationKey, Boolean> resultCache;
+
+    public AIValidationService(
+            AIValidationBatcher batcher,
+            MeterRegistry meterRegistry,
+            @Value("${evidence.ai.cache.max-size:50000}") long maxSize,
+            @Value("${evidence.ai.cache.ttl-hours:24}") long ttlHours) {
+        this.batcher = batcher;
+        this.resultCache = CaffeineCacheMetrics.monitor(meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .recordStats()
+                .<ValidationKey, Boolean>buildAsync(),
+            "evidence.ai.validation");
+    }
+
+    /**
+     * Valida una imagen con IA. La llamada se agrupa con otras concurrentes de la
+     * misma categoría (micro-batching); el futuro se completa con el resultado.
+     * Si la misma imagen ya se validó para la categoría se reutiliza el resultado.
+     */
+    public CompletableFuture<Boolean> validateAsync(String imageUrl, ChallengeCategory category) {
+        ValidationKey key = new ValidationKey(ImageFingerprint.of(imageUrl), category);
+        CompletableFuture<Boolean> cached = resultCache.getIfPresent(key);
+        if (cached != null) {
+            log.info("Validación de IA reutilizada para imagen {} ({})", imageUrl, category);
+            return cached;
+        }
+
+        log.info("Validando imagen con IA: {} para categoría: {}", imageUrl, category);
+        // Los fallos no quedan en caché: Caffeine descarta los futuros completados con error
+        return resultCache.get(key, (k, executor) -> batcher.submit(category, imageUrl))
+            .whenComplete((isValid, error) -> logResult(imageUrl, category, isValid, error));
+    }
+
+    /**
+     * Valida un lote de imágenes de una misma categoría en una sola llamada al modelo.
+     * Las imágenes ya validadas (o en validación) salen de la caché; solo las demás, sin
+     * repetir, van al modelo y sus resultados quedan en caché. Los resultados se devuelven
+     * en el mismo orden que las imágenes.
+     */
+    public List<Boolean> validateBatch(List<String> imageUrls, ChallengeCategory category) {
+        Map<ValidationKey, String> urlsByKey = new LinkedHashMap<>();
+        imageUrls.forEach(url -> urlsByKey.putIfAbsent(new ValidationKey(ImageFingerprint.of(url), category), url));
+
+        Map<ValidationKey, Boolean> results;
+        try {
+            results = resultCache.getAll(urlsByKey.keySet(), (missing, executor) -> {
+                List<ValidationKey> keys = List.copyOf(missing);
+                log.info("Validando lote de {} imágenes con IA para categoría: {} ({} reutilizadas)",
+                    keys.size(), category, urlsByKey.size() - keys.size());
+                try {
+                    List<Boolean> validated = batcher.validateNow(category, keys.stream().map(urlsByKey::get).toList());
+                    Map<ValidationKey, Boolean> byKey = new HashMap<>();
+                    for (int i = 0; i < keys.size(); i++) {
+                        byKey.put(keys.get(i), validated.get(i));
+                    }
+                    return CompletableFuture.completedFuture(byKey);
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        return imageUrls.stream()
+            .map(url -> results.get(new ValidationKey(ImageFingerprint.of(url), category)))
+            .toList();
+    }
+
     /**
-     * Simula la validación de una imagen usando IA
-     * Retorna true el 50% de las veces para simular el comportamiento
+     * Valida una imagen esperando el resultado.
+     * Si la validación falla o es rechazada por saturación, la imagen se considera inválida.
      */
     public boolean validateEvidenceImage(String imageUrl, ChallengeCategory category) {
-        log.info("Validando imagen con IA simulada: {} para categoría: {}", imageUrl, category);
-        
         try {
-            // Simular tiempo de procesamiento de IA
-            Thread.sleep(100);
-            
-            // Generar resultado aleatorio (50% de probabilidad de éxito)
-            boolean isValid = Math.random() < 0.5;
-            
-            if (isValid) {
-                log.info("✅ IA VÁLIDA: Imagen {} aprobada para categoría {}", imageUrl, category);
-            } else {
-                log.warn("❌ IA INVÁLIDA: Imagen {} rechazada para categoría {}", imageUrl, category);
-            }
-            
-            return isValid;
-            
-        } catch (InterruptedException e) {
-            log.error("Error simulando validación de IA: {}", e.getMessage());
-            Thread.currentThread().interrupt();
+            return validateAsync(imageUrl, category).join();
+        } catch (CompletionException e) {
+            log.error("Error en validación de IA: {}", e.getCause().getMessage());
             return false;
         }
     }
 
+    private void logResult(String imageUrl, ChallengeCategory category, Boolean isValid, Throwable error) {
+        if (error != null) {
+            return;
+        }
+        if (isValid) {
+            log.info("✅ IA VÁLIDA: Imagen {} aprobada para categoría {}", imageUrl, category);
+        } else {
+            log.warn("❌ IA INVÁLIDA: Imagen {} rechazada para categoría {}", imageUrl, category);
+        }
+    }
+
     /**
      * Simula análisis detallado de la imagen para propósitos de logging
      */
@@ -82,6 +163,9 @@ public class AIValidationService {
         }
     }
 
+    private record ValidationKey(String imageHash, ChallengeCategory category) {
+    }
+
     @lombok.Builder
     @lombok.Data
     public static class AIValidationResult {
@@ -0,0 +1,242 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.Challenge;
+import com.example.habitleague.challenge.model.ChallengeMember;
+import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.evidence.model.DayBitmap;
+import com.example.habitleague.evidence.model.EvidenceDayIndex;
+import com.example.habitleague.evidence.model.StreakCounters;
+import com.example.habitleague.evidence.repository.EvidenceDayIndexRepository;
+import com.example.habitleague.evidence.repository.EvidenceRepository;
+import com.example.habitleague.evidence.repository.EvidenceRepository.SubmissionView;
+import com.example.habitleague.shared.exception.ChallengeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene el índice de días con evidencia por participante. Las consultas diarias
+ * ("envió hoy", rachas, días perdidos) se resuelven con una sola fila pequeña en lugar
+ * de rangos sobre la tabla de evidencias. La fila guarda además la racha actual y la más
+ * larga, que se actualizan de forma incremental con cada evidencia. Los días son los de la
+ * zona del negocio (la del ciclo diario), no los de la JVM.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EvidenceDayIndexService {
+
+    private final EvidenceDayIndexRepository dayIndexRepository;
+    private final EvidenceRepository evidenceRepository;
+    private final ChallengeMemberRepository memberRepository;
+    private final ChallengeRepository challengeRepository;
+    private final Clock lifecycleClock;
+
+    /**
+     * Día actual en la zona del negocio
+     */
+    public LocalDate today() {
+        return LocalDate.now(lifecycleClock);
+    }
+
+    /**
+     * Día de la zona del negocio al que corresponde un envío. submittedAt lo genera Hibernate
+     * en la zona de la JVM, así que se interpreta en ella antes de convertirlo.
+     */
+    public LocalDate dayOf(LocalDateTime submittedAt) {
+        return submittedAt.atZone(ZoneId.systemDefault())
+            .withZoneSameInstant(lifecycleClock.getZone())
+            .toLocalDate();
+    }
+
+    /**
+     * Inicio del día de negocio actual expresado en la zona de la JVM, para comparar con submittedAt
+     */
+    public LocalDateTime startOfToday() {
+        return today().atStartOfDay(lifecycleClock.getZone())
+            .withZoneSameInstant(ZoneId.systemDefault())
+            .toLocalDateTime();
+    }
+
+    /**
+     * Mapa de días del participante. Si aún no tiene índice se calcula desde
+     * sus evidencias sin persistirlo (válido en transacciones de solo lectura).
+     */
+    @Transactional(readOnly = true)
+    public DayBitmap getBitmap(ChallengeMember member) {
+        return dayIndexRepository.findByChallengeMemberId(member.getId())
+            .map(EvidenceDayIndex::toBitmap)
+            .orElseGet(() -> buildFromEvidences(member.getId(), member.getChallenge().getStartDate()));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasSubmitted(ChallengeMember member, LocalDate date) {
+        return getBitmap(member).isSet(date);
+    }
+
+    @Transactional(readOnly = true)
+    public int currentStreak(ChallengeMember member, LocalDate asOf) {
+        return dayIndexRepository.findByChallengeMemberId(member.getId())
+            .filter(EvidenceDayIndex::hasStreaks)
+            .map(index -> index.toStreak().currentAsOf(asOf))
+            .orElseGet(() -> getBitmap(member).currentStreak(asOf));
+    }
+
+    @Transactional(readOnly = true)
+    public int missedDays(ChallengeMember member, LocalDate from, LocalDate to) {
+        return getBitmap(member).missedDays(from, to);
+    }
+
+    /**
+     * Obtiene la fila del participante bloqueada para escritura, creándola si no existe.
+     * Serializa los envíos concurrentes de un mismo participante, también el primero.
+     */
+    @Transactional
+    public EvidenceDayIndex lockForMember(ChallengeMember member) {
+        return dayIndexRepository.findByChallengeMemberIdForUpdate(member.getId())
+            .orElseGet(() -> createIndex(member.getId(), member.getChallenge().getId(),
+                member.getChallenge().getStartDate()));
+    }
+
+    /**
+     * Marca el día como enviado en la fila bloqueada y actualiza las rachas
+     */
+    @Transactional
+    public void markSubmitted(EvidenceDayIndex index, LocalDate date) {
+        DayBitmap bitmap = index.toBitmap();
+        if (bitmap.set(date)) {
+            index.apply(bitmap);
+            index.recordDay(date);
+            dayIndexRepository.save(index);
+        }
+    }
+
+    /**
+     * Índices de los participantes indicados de un challenge, con sus rachas. Los que no
+     * tienen índice (o aún no tienen contadores) se completan y se guardan en la misma
+     * transacción. Si hay filas sin contadores, las del challenge se leen con el bloqueo de
+     * fila de los envíos para que uno concurrente no invalide su versión.
+     */
+    @Transactional
+    public Map<Long, EvidenceDayIndex> getChallengeIndexes(Long challengeId, Collection<Long> memberIds) {
+        List<EvidenceDayIndex> rows = dayIndexRepository.existsWithoutStreaks(challengeId)
+            ? dayIndexRepository.findByChallengeIdForUpdate(challengeId)
+            : dayIndexRepository.findByChallengeId(challengeId);
+        Map<Long, EvidenceDayIndex> indexes = rows.stream()
+            .collect(Collectors.toMap(EvidenceDayIndex::getChallengeMemberId, Function.identity()));
+
+        indexes.values().stream()
+            .filter(index -> !index.hasStreaks())
+            .forEach(index -> {
+                index.recomputeStreaks();
+                dayIndexRepository.save(index);
+            });
+
+        List<Long> missing = memberIds.stream().filter(id -> !indexes.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            log.info("Construyendo índice de días para {} participantes del challenge {}", missing.size(), challengeId);
+            LocalDate startDate = findChallenge(challengeId).getStartDate();
+            for (Long memberId : missing) {
+                indexes.put(memberId, createIndex(memberId, challengeId, startDate));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Rachas de los participantes indicados de un challenge
+     */
+    @Transactional
+    public Map<Long, StreakCounters> getChallengeStreaks(Long challengeId, Collection<Long> memberIds) {
+        Map<Long, StreakCounters> streaks = new HashMap<>();
+        getChallengeIndexes(challengeId, memberIds).forEach((memberId, index) -> streaks.put(memberId, index.toStreak()));
+        return streaks;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findAllChallengeIds() {
+        return challengeRepository.findAllIds();
+    }
+
+    /**
+     * Regenera el índice de un challenge a partir de sus evidencias. Las filas se actualizan
+     * en su sitio con el bloqueo de fila que también toman los envíos, así que un envío
+     * concurrente espera a la regeneración (o la regeneración a él) y no se pierde su día.
+     *
+     * @return número de participantes indexados
+     */
+    @Transactional
+    public int rebuild(Long challengeId) {
+        Challenge challenge = findChallenge(challengeId);
+        Map<Long, EvidenceDayIndex> indexes = dayIndexRepository.findByChallengeIdForUpdate(challengeId).stream()
+            .collect(Collectors.toMap(EvidenceDayIndex::getChallengeMemberId, Function.identity()));
+        for (Long memberId : memberRepository.findIdsByChallengeId(challengeId)) {
+            if (!indexes.containsKey(memberId)) {
+                indexes.put(memberId, createIndex(memberId, challengeId, challenge.getStartDate()));
+            }
+        }
+
+        Map<Long, DayBitmap> bitmaps = new HashMap<>();
+        indexes.keySet().forEach(memberId -> bitmaps.put(memberId, DayBitmap.empty(challenge.getStartDate())));
+        for (SubmissionView submission : evidenceRepository.findSubmissionsByChallengeId(challengeId)) {
+            DayBitmap bitmap = bitmaps.get(submission.getMemberId());
+            if (bitmap != null) {
+                bitmap.set(dayOf(submission.getSubmittedAt()));
+            }
+        }
+
+        bitmaps.forEach((memberId, bitmap) -> {
+            EvidenceDayIndex index = indexes.get(memberId);
+            index.apply(bitmap);
+            index.recomputeStreaks();
+        });
+        dayIndexRepository.saveAll(indexes.values());
+
+        log.info("Índice de días regenerado para challenge {}: {} participantes", challengeId, indexes.size());
+        return indexes.size();
+    }
+
+    /**
+     * Crea la fila del participante y la deja bloqueada. Si otra transacción la crea a la vez,
+     * la inserción espera a que confirme y se usa su fila; solo quien la crea la rellena desde
+     * las evidencias.
+     */
+    private EvidenceDayIndex createIndex(Long memberId, Long challengeId, LocalDate startDate) {
+        boolean created = dayIndexRepository.insertIfAbsent(memberId, challengeId, startDate,
+            new byte[0], LocalDateTime.now()) > 0;
+        EvidenceDayIndex index = dayIndexRepository.findByChallengeMemberIdForUpdate(memberId)
+            .orElseThrow(() -> new IllegalStateException("Índice de días no encontrado para el participante " + memberId));
+        if (created) {
+            index.apply(buildFromEvidences(memberId, startDate));
+            index.recomputeStreaks();
+            dayIndexRepository.save(index);
+        }
+        return index;
+    }
+
+    private DayBitmap buildFromEvidences(Long memberId, LocalDate startDate) {
+        DayBitmap bitmap = DayBitmap.empty(startDate);
+        for (LocalDateTime submittedAt : evidenceRepository.findSubmittedAtByMemberId(memberId)) {
+            bitmap.set(dayOf(submittedAt));
+        }
+        return bitmap;
+    }
+
+    private Challenge findChallenge(Long challengeId) {
+        return challengeRepository.findById(challengeId)
+            .orElseThrow(() -> new ChallengeException("Challenge no encontrado"));
+    }
+}
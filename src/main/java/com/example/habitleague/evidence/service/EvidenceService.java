@@ -1,26 +1,25 @@
 package com.example.habitleague.evidence.service;
 
-import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeMember;
 import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
-import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.service.ChallengeSnapshotCache;
+import com.example.habitleague.challenge.service.MembershipService;
 import com.example.habitleague.evidence.dto.EvidenceResponse;
 import com.example.habitleague.evidence.dto.SubmitEvidenceRequest;
 import com.example.habitleague.evidence.model.Evidence;
+import com.example.habitleague.evidence.model.EvidenceDayIndex;
+import com.example.habitleague.evidence.model.EvidenceStatus;
 import com.example.habitleague.evidence.repository.EvidenceRepository;
-import com.example.habitleague.location.model.EvidenceLocationVerification;
-import com.example.habitleague.location.repository.EvidenceLocationVerificationRepository;
-import com.example.habitleague.location.service.EvidenceLocationVerificationService;
+import com.example.habitleague.shared.event.EvidenceSubmittedEvent;
 import com.example.habitleague.shared.exception.ChallengeException;
 import com.example.habitleague.user.model.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 
 @Service
@@ -30,10 +29,10 @@ public class EvidenceService {
 
     private final EvidenceRepository evidenceRepository;
     private final ChallengeMemberRepository challengeMemberRepository;
-    private final ChallengeRepository challengeRepository;
-    private final EvidenceLocationVerificationRepository verificationRepository;
-    private final AIValidationService aiValidationService;
-    private final EvidenceLocationVerificationService locationVerificationService;
+    private final ChallengeSnapshotCache snapshotCache;
+    private final MembershipService membershipService;
+    private final EvidenceDayIndexService dayIndexService;
+    private final ApplicationEventPublisher publisher;
 
     /**
      * Procesa el envío de una evidencia diaria
@@ -42,14 +41,9 @@ public class EvidenceService {
     public EvidenceResponse submitEvidence(SubmitEvidenceRequest request, User user) {
         log.info("Procesando evidencia para usuario {} en challenge {}", user.getEmail(), request.getChallengeId());
 
-        // 1. Verificar que el challenge existe
-        Challenge challenge = challengeRepository.findById(request.getChallengeId())
-                .orElseThrow(() -> new ChallengeException("Challenge no encontrado"));
-
-        // 2. Verificar que el usuario es miembro del challenge
-        ChallengeMember challengeMember = challengeMemberRepository
-                .findByUserAndChallenge(user, challenge)
-                .orElseThrow(() -> new ChallengeException("No eres miembro de este challenge"));
+        // 1-2. Verificar que el challenge existe y que el usuario es miembro
+        ChallengeMember challengeMember = requireMember(user, request.getChallengeId(),
+                "No eres miembro de este challenge");
 
         // 3. Verificar que el miembro tiene pago y ubicación completados
         if (!challengeMember.getPaymentCompleted()) {
@@ -59,44 +53,54 @@ public class EvidenceService {
             throw new ChallengeException("Debes registrar tu ubicación antes de enviar evidencias");
         }
 
-        // 4. Verificar que no ha enviado evidencia hoy
-        if (hasSubmittedEvidenceToday(challengeMember)) {
+        // 4. Verificar que no ha enviado evidencia hoy (la fila del índice queda bloqueada
+        //    hasta el commit, así dos envíos simultáneos no pueden pasar ambos)
+        EvidenceDayIndex dayIndex = dayIndexService.lockForMember(challengeMember);
+        if (dayIndex.toBitmap().isSet(dayIndexService.today())) {
             throw new ChallengeException("Ya enviaste tu evidencia diaria para hoy");
         }
 
-        // 5. Crear evidencia inicial (sin validaciones aún)
+        // 5. Detectar si la misma imagen ya se envió en un día anterior (de cualquier usuario).
+        //    Solo se marca para revisión; la evidencia pasa por la validación normal
+        String imageHash = ImageFingerprint.of(request.getImageUrl());
+        Long duplicateOf = evidenceRepository.findIdsByImageHashSubmittedBefore(
+                imageHash, dayIndexService.startOfToday(), PageRequest.of(0, 1))
+                .stream().findFirst().orElse(null);
+        if (duplicateOf != null) {
+            log.warn("⚠️ Posible imagen duplicada: {} ya se usó en la evidencia {}", request.getImageUrl(), duplicateOf);
+        }
+
+        // 6. Guardar la evidencia pendiente; la validación (IA + ubicación) es asíncrona
         Evidence evidence = Evidence.builder()
                 .challengeMember(challengeMember)
                 .imageUrl(request.getImageUrl())
+                .imageHash(imageHash)
+                .duplicateOfEvidenceId(duplicateOf)
                 .latitude(request.getLatitude())
                 .longitude(request.getLongitude())
                 .aiValidated(false)
                 .locationValid(false)
+                .status(EvidenceStatus.PENDING)
                 .build();
 
         evidence = evidenceRepository.save(evidence);
-        log.info("Evidencia inicial creada con ID: {}", evidence.getId());
-
-        // 6. Validar con IA (simulada)
-        boolean aiResult = aiValidationService.validateEvidenceImage(
-            request.getImageUrl(), 
-            challenge.getCategory()
-        );
-        evidence.setAiValidated(aiResult);
-
-        // 7. Verificar ubicación
-        EvidenceLocationVerification locationVerification = locationVerificationService
-                .verifyLocationForEvidence(evidence, request.getLatitude(), request.getLongitude());
-        
-        verificationRepository.save(locationVerification);
-        evidence.setLocationValid(locationVerification.getIsWithinTolerance());
+        dayIndexService.markSubmitted(dayIndex, dayIndexService.dayOf(evidence.getSubmittedAt()));
+        log.info("Evidencia creada con ID: {} (pendiente de validación)", evidence.getId());
 
-        // 8. Guardar evidencia actualizada
-        evidence = evidenceRepository.save(evidence);
+        // 7. La validación se encola cuando la transacción se confirma
+        publisher.publishEvent(new EvidenceSubmittedEvent(evidence.getId(), request.getChallengeId(), user.getId()));
 
-        // 9. Log del resultado
-        logEvidenceResult(evidence, locationVerification);
+        return EvidenceResponse.fromEvidence(evidence);
+    }
 
+    /**
+     * Obtiene una evidencia del usuario (para consultar su estado de validación)
+     */
+    @Transactional(readOnly = true)
+    public EvidenceResponse getUserEvidence(Long evidenceId, User user) {
+        Evidence evidence = evidenceRepository.findById(evidenceId)
+                .filter(e -> e.getChallengeMember().getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new ChallengeException("Evidencia no encontrada"));
         return EvidenceResponse.fromEvidence(evidence);
     }
 
@@ -117,12 +121,7 @@ public class EvidenceService {
     @Transactional(readOnly = true)
     public List<EvidenceResponse> getEvidencesByChallenge(Long challengeId, User user) {
         // Verificar que el usuario tiene acceso al challenge
-        Challenge challenge = challengeRepository.findById(challengeId)
-                .orElseThrow(() -> new ChallengeException("Challenge no encontrado"));
-
-        ChallengeMember challengeMember = challengeMemberRepository
-                .findByUserAndChallenge(user, challenge)
-                .orElseThrow(() -> new ChallengeException("No tienes acceso a este challenge"));
+        checkMember(user, challengeId, "No tienes acceso a este challenge");
 
         // Retornar solo las evidencias del usuario para este challenge
         List<Evidence> evidences = evidenceRepository.findByChallengeMember_User_Id(user.getId());
@@ -137,25 +136,34 @@ public class EvidenceService {
      */
     @Transactional(readOnly = true)
     public boolean hasSubmittedEvidenceToday(User user, Long challengeId) {
-        Challenge challenge = challengeRepository.findById(challengeId)
-                .orElseThrow(() -> new ChallengeException("Challenge no encontrado"));
-
-        ChallengeMember challengeMember = challengeMemberRepository
-                .findByUserAndChallenge(user, challenge)
-                .orElseThrow(() -> new ChallengeException("No eres miembro de este challenge"));
+        ChallengeMember challengeMember = requireMember(user, challengeId, "No eres miembro de este challenge");
 
         return hasSubmittedEvidenceToday(challengeMember);
     }
 
+    /**
+     * Comprueba la membresía con la caché; los no miembros se rechazan sin cargar entidades
+     */
+    private void checkMember(User user, Long challengeId, String notMemberMessage) {
+        if (!membershipService.isMember(user.getId(), challengeId)) {
+            if (snapshotCache.find(challengeId).isEmpty()) {
+                throw new ChallengeException("Challenge no encontrado");
+            }
+            throw new ChallengeException(notMemberMessage);
+        }
+    }
+
+    private ChallengeMember requireMember(User user, Long challengeId, String notMemberMessage) {
+        checkMember(user, challengeId, notMemberMessage);
+        return challengeMemberRepository.findByUserIdAndChallengeId(user.getId(), challengeId)
+                .orElseThrow(() -> new ChallengeException(notMemberMessage));
+    }
+
     /**
      * Verifica si un miembro ya envió evidencia hoy
      */
     private boolean hasSubmittedEvidenceToday(ChallengeMember challengeMember) {
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
-
-        return evidenceRepository.existsByChallengeMemberAndSubmittedAtBetween(
-                challengeMember, startOfDay, endOfDay);
+        return dayIndexService.hasSubmitted(challengeMember, dayIndexService.today());
     }
 
     /**
@@ -185,25 +193,6 @@ public class EvidenceService {
             .build();
     }
 
-    private void logEvidenceResult(Evidence evidence, EvidenceLocationVerification verification) {
-        String aiStatus = evidence.getAiValidated() ? "✅ VÁLIDA" : "❌ INVÁLIDA";
-        String locationStatus = evidence.getLocationValid() ? "✅ VÁLIDA" : "❌ INVÁLIDA";
-        
-        log.info("📊 RESULTADO EVIDENCIA ID {}: IA: {} | Ubicación: {} | Distancia: {:.1f}m", 
-                evidence.getId(), aiStatus, locationStatus, verification.getDistanceFromRegistered());
-        
-        if (!evidence.getAiValidated() || !evidence.getLocationValid()) {
-            log.warn("⚠️ EVIDENCIA RECHAZADA - Usuario: {} | Challenge: {} | Razón: {}", 
-                    evidence.getChallengeMember().getUser().getEmail(),
-                    evidence.getChallengeMember().getChallenge().getName(),
-                    !evidence.getAiValidated() ? "IA rechazada" : "Ubicación inválida");
-        } else {
-            log.info("🎉 EVIDENCIA APROBADA - Usuario: {} | Challenge: {}", 
-                    evidence.getChallengeMember().getUser().getEmail(),
-                    evidence.getChallengeMember().getChallenge().getName());
-        }
-    }
-
     @lombok.Builder
     @lombok.Data
     public static class EvidenceStats {
@@ -0,0 +1,69 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.evidence.dto.EvidenceResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Suscripciones SSE al veredicto de una evidencia. Cada suscriptor recibe un único
+ * evento "status" con la evidencia validada y la conexión se cierra.
+ */
+@Component
+@Slf4j
+public class EvidenceStatusNotifier {
+
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+
+    public EvidenceStatusNotifier(@Value("${evidence.validation.sse-timeout-ms:60000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter subscribe(Long evidenceId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribers.computeIfAbsent(evidenceId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+
+        Runnable remove = () -> subscribers.computeIfPresent(evidenceId, (id, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * Envía el veredicto a los suscriptores de la evidencia y cierra sus conexiones
+     */
+    public void publish(EvidenceResponse evidence) {
+        List<SseEmitter> emitters = subscribers.remove(evidence.getId());
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(emitter, evidence);
+        }
+    }
+
+    /**
+     * Envía directamente a un suscriptor (evidencia ya validada al suscribirse)
+     */
+    public void send(SseEmitter emitter, EvidenceResponse evidence) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(evidence));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("No se pudo notificar la evidencia {}: {}", evidence.getId(), e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.evidence.dto.EvidenceResponse;
+import com.example.habitleague.evidence.model.Evidence;
+import com.example.habitleague.evidence.model.EvidenceStatus;
+import com.example.habitleague.evidence.repository.EvidenceRepository;
+import com.example.habitleague.location.model.EvidenceLocationVerification;
+import com.example.habitleague.location.repository.EvidenceLocationVerificationRepository;
+import com.example.habitleague.location.service.EvidenceLocationVerificationService;
+import com.example.habitleague.shared.event.EvidenceSubmittedEvent;
+import com.example.habitleague.shared.exception.ChallengeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pipeline de validación de evidencias. La evidencia se guarda como PENDING en la
+ * petición; al confirmarse la transacción la validación (IA + ubicación) se encola en
+ * un pool acotado y el resultado se escribe en una transacción corta. La llamada a la
+ * IA no retiene ninguna conexión de base de datos. Cada validación se toma con un UPDATE
+ * condicional (un solo nodo la ejecuta) y el número de validaciones en curso, incluida la
+ * espera a la IA, está limitado.
+ */
+@Service
+@Slf4j
+public class EvidenceValidationService {
+
+    private final EvidenceRepository evidenceRepository;
+    private final EvidenceLocationVerificationRepository verificationRepository;
+    private final AIValidationService aiValidationService;
+    private final EvidenceLocationVerificationService locationVerificationService;
+    private final EvidenceStatusNotifier statusNotifier;
+    private final ThreadPoolTaskExecutor validationExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final long staleSeconds;
+    private final int sweepBatchSize;
+    private final long claimTimeoutSeconds;
+    // Un permiso por validación desde que se encola hasta que se escribe su resultado
+    private final Semaphore inFlightPermits;
+
+    // Evidencias encoladas en este nodo (evita que el barrido las duplique)
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public EvidenceValidationService(
+            EvidenceRepository evidenceRepository,
+            EvidenceLocationVerificationRepository verificationRepository,
+            AIValidationService aiValidationService,
+            EvidenceLocationVerificationService locationVerificationService,
+            EvidenceStatusNotifier statusNotifier,
+            @Qualifier("evidenceValidationExecutor") ThreadPoolTaskExecutor validationExecutor,
+            PlatformTransactionManager transactionManager,
+            @Value("${evidence.validation.stale-seconds:60}") long staleSeconds,
+            @Value("${evidence.validation.sweep-batch-size:100}") int sweepBatchSize,
+            @Value("${evidence.validation.claim-timeout-seconds:300}") long claimTimeoutSeconds,
+            @Value("${evidence.validation.max-in-flight:200}") int maxInFlight) {
+        this.evidenceRepository = evidenceRepository;
+        this.verificationRepository = verificationRepository;
+        this.aiValidationService = aiValidationService;
+        this.locationVerificationService = locationVerificationService;
+        this.statusNotifier = statusNotifier;
+        this.validationExecutor = validationExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.staleSeconds = staleSeconds;
+        this.sweepBatchSize = sweepBatchSize;
+        this.claimTimeoutSeconds = claimTimeoutSeconds;
+        this.inFlightPermits = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    /**
+     * Encola la validación cuando la evidencia ya está confirmada en la base de datos
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEvidenceSubmitted(EvidenceSubmittedEvent event) {
+        enqueue(event.getEvidenceId());
+    }
+
+    /**
+     * Reencola las evidencias PENDING que no se validaron (cola llena, reinicio del nodo, error)
+     */
+    @Scheduled(fixedDelayString = "${evidence.validation.sweep-interval-ms:60000}")
+    public void sweepPendingEvidences() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(staleSeconds);
+        List<Long> pending = evidenceRepository.findIdsByStatusSubmittedBefore(
+            EvidenceStatus.PENDING, before, PageRequest.of(0, sweepBatchSize));
+
+        int enqueued = 0;
+        for (Long evidenceId : pending) {
+            if (!inFlight.contains(evidenceId) && enqueue(evidenceId)) {
+                enqueued++;
+            }
+        }
+        if (enqueued > 0) {
+            log.info("Barrido de evidencias pendientes: {} reencoladas", enqueued);
+        }
+    }
+
+    /**
+     * Completa el estado de las evidencias creadas antes de la validación asíncrona
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLegacyStatus() {
+        Integer updated = transactionTemplate.execute(status -> evidenceRepository.backfillLegacyStatus());
+        if (updated != null && updated > 0) {
+            log.info("Estado de validación completado para {} evidencias existentes", updated);
+        }
+    }
+
+    private boolean enqueue(Long evidenceId) {
+        if (!inFlight.add(evidenceId)) {
+            return false;
+        }
+        if (!inFlightPermits.tryAcquire()) {
+            inFlight.remove(evidenceId);
+            log.warn("Demasiadas validaciones en curso; evidencia {} queda pendiente para el barrido", evidenceId);
+            return false;
+        }
+        try {
+            validationExecutor.execute(() -> validate(evidenceId)
+                .whenComplete((ignored, error) -> {
+                    inFlight.remove(evidenceId);
+                    inFlightPermits.release();
+                    if (error != null) {
+                        log.error("Error validando evidencia {} (queda pendiente): {}",
+                            evidenceId, error.getMessage());
+                        releaseClaim(evidenceId);
+                    }
+                }));
+            return true;
+        } catch (TaskRejectedException e) {
+            inFlight.remove(evidenceId);
+            inFlightPermits.release();
+            log.warn("Cola de validación llena; evidencia {} queda pendiente para el barrido", evidenceId);
+            return false;
+        }
+    }
+
+    private void releaseClaim(Long evidenceId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> evidenceRepository.releaseValidationClaim(evidenceId));
+        } catch (Exception e) {
+            // La toma caduca sola tras claim-timeout-seconds
+            log.warn("No se pudo liberar la validación de la evidencia {}: {}", evidenceId, e.getMessage());
+        }
+    }
+
+    /**
+     * Valida una evidencia pendiente. Si otro proceso ya la validó o la está validando
+     * no hace nada. La llamada a la IA se agrupa con otras (micro-batching) y el
+     * resultado se escribe de vuelta en el pool de validación.
+     */
+    public CompletableFuture<Void> validate(Long evidenceId) {
+        // 1. Tomar la evidencia y leer los datos necesarios para la IA (transacción corta)
+        ValidationContext context;
+        try {
+            context = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (evidenceRepository.claimForValidation(evidenceId, now, now.minusSeconds(claimTimeoutSeconds)) == 0) {
+                    return null;
+                }
+                return evidenceRepository.findById(evidenceId)
+                    .map(evidence -> new ValidationContext(
+                        evidence.getImageUrl(),
+                        evidence.getChallengeMember().getChallenge().getCategory()))
+                    .orElse(null);
+            });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (context == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // 2. Validar con IA fuera de cualquier transacción. Una imagen marcada como posible
+        //    duplicado sigue la validación normal: la coincidencia de huella no basta para rechazar
+        CompletableFuture<Boolean> aiValidation =
+            aiValidationService.validateAsync(context.imageUrl(), context.category());
+
+        // 3. Verificar ubicación y escribir el resultado
+        return aiValidation
+            .thenAcceptAsync(aiResult -> {
+                EvidenceResponse result = transactionTemplate.execute(status -> applyResult(evidenceId, aiResult));
+                if (result != null) {
+                    statusNotifier.publish(result);
+                }
+            }, validationExecutor);
+    }
+
+    /**
+     * Escribe el resultado con la fila bloqueada: si mientras tanto otro proceso la validó
+     * (por ejemplo tras caducar la toma), no se sobrescribe
+     */
+    private EvidenceResponse applyResult(Long evidenceId, boolean aiResult) {
+        Evidence evidence = evidenceRepository.findByIdForUpdate(evidenceId).orElse(null);
+        if (evidence == null || evidence.getStatus() != EvidenceStatus.PENDING) {
+            return null;
+        }
+
+        evidence.setAiValidated(aiResult);
+
+        EvidenceLocationVerification locationVerification = null;
+        try {
+            locationVerification = locationVerificationService
+                .verifyLocationForEvidence(evidence, evidence.getLatitude(), evidence.getLongitude());
+            verificationRepository.save(locationVerification);
+            evidence.setLocationValid(locationVerification.getIsWithinTolerance());
+        } catch (ChallengeException e) {
+            log.warn("Evidencia {} sin ubicación registrada: {}", evidenceId, e.getMessage());
+            evidence.setLocationValid(false);
+        }
+
+        evidence.setStatus(evidence.getAiValidated() && evidence.getLocationValid()
+            ? EvidenceStatus.APPROVED
+            : EvidenceStatus.REJECTED);
+        evidence.setValidatedAt(LocalDateTime.now());
+        evidence = evidenceRepository.save(evidence);
+
+        logEvidenceResult(evidence, locationVerification);
+        return EvidenceResponse.fromEvidence(evidence);
+    }
+
+    private void logEvidenceResult(Evidence evidence, EvidenceLocationVerification verification) {
+        if (evidence.getDuplicateOfEvidenceId() != null) {
+            log.warn("🔁 Evidencia {} marcada para revisión: misma imagen que la evidencia {}",
+                    evidence.getId(), evidence.getDuplicateOfEvidenceId());
+        }
+
+        String aiStatus = evidence.getAiValidated() ? "✅ VÁLIDA" : "❌ INVÁLIDA";
+        String locationStatus = evidence.getLocationValid() ? "✅ VÁLIDA" : "❌ INVÁLIDA";
+
+        log.info("📊 RESULTADO EVIDENCIA ID {}: IA: {} | Ubicación: {} | Distancia: {}m",
+                evidence.getId(), aiStatus, locationStatus,
+                verification != null ? String.format("%.1f", verification.getDistanceFromRegistered()) : "-");
+
+        if (evidence.getStatus() == EvidenceStatus.REJECTED) {
+            log.warn("⚠️ EVIDENCIA RECHAZADA - Usuario: {} | Challenge: {} | Razón: {}",
+                    evidence.getChallengeMember().getUser().getEmail(),
+                    evidence.getChallengeMember().getChallenge().getName(),
+                    !evidence.getAiValidated() ? "IA rechazada" : "Ubicación inválida");
+        } else {
+            log.info("🎉 EVIDENCIA APROBADA - Usuario: {} | Challenge: {}",
+                    evidence.getChallengeMember().getUser().getEmail(),
+                    evidence.getChallengeMember().getChallenge().getName());
+        }
+    }
+
+    private record ValidationContext(String imageUrl, ChallengeCategory category) {
+    }
+}
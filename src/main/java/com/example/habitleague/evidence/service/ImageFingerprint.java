@@ -0,0 +1,54 @@
+package com.example.habitleague.evidence.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Huella de una imagen de evidencia: SHA-256 de su URL normalizada (esquema y host
+ * en minúsculas, sin fragmento ni espacios). Dos envíos con la misma huella se
+ * consideran la misma imagen.
+ */
+public final class ImageFingerprint {
+
+    private ImageFingerprint() {
+    }
+
+    public static String of(String imageUrl) {
+        return sha256(normalize(imageUrl));
+    }
+
+    static String normalize(String imageUrl) {
+        String trimmed = imageUrl.trim();
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return trimmed;
+            }
+            int port = uri.getPort();
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            boolean defaultPort = port == -1
+                || ("http".equals(scheme) && port == 80)
+                || ("https".equals(scheme) && port == 443);
+            return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT)
+                + (defaultPort ? "" : ":" + port)
+                + (uri.getRawPath() != null ? uri.getRawPath() : "")
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+
+import java.util.List;
+
+/**
+ * Modelo de clasificación de imágenes usado para validar evidencias.
+ * Las implementaciones reciben lotes de una misma categoría y devuelven un
+ * resultado por imagen, en el mismo orden.
+ */
+public interface ImageValidationBackend {
+
+    List<Boolean> validateBatch(ChallengeCategory category, List<String> imageUrls);
+}
@@ -0,0 +1,52 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Modelo simulado: un costo fijo por llamada más un costo pequeño por imagen,
+ * y aprobación aleatoria configurable (50% por defecto)
+ */
+@Component
+@ConditionalOnProperty(name = "evidence.ai.backend", havingValue = "simulated", matchIfMissing = true)
+@Slf4j
+public class SimulatedImageValidationBackend implements ImageValidationBackend {
+
+    private final long callMillis;
+    private final long perImageMillis;
+    private final double approvalRate;
+
+    public SimulatedImageValidationBackend(
+            @Value("${evidence.ai.simulated.call-ms:100}") long callMillis,
+            @Value("${evidence.ai.simulated.per-image-ms:5}") long perImageMillis,
+            @Value("${evidence.ai.simulated.approval-rate:0.5}") double approvalRate) {
+        this.callMillis = callMillis;
+        this.perImageMillis = perImageMillis;
+        this.approvalRate = approvalRate;
+    }
+
+    @Override
+    public List<Boolean> validateBatch(ChallengeCategory category, List<String> imageUrls) {
+        try {
+            // Simular tiempo de procesamiento de IA
+            Thread.sleep(callMillis + perImageMillis * imageUrls.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Validación de IA interrumpida", e);
+        }
+
+        List<Boolean> results = new ArrayList<>(imageUrls.size());
+        for (int i = 0; i < imageUrls.size(); i++) {
+            results.add(ThreadLocalRandom.current().nextDouble() < approvalRate);
+        }
+        log.debug("Lote simulado de {} imágenes para categoría {}", imageUrls.size(), category);
+        return results;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.habitleague.export.controller;
+
+import com.example.habitleague.export.dto.ExportDataset;
+import com.example.habitleague.export.service.NdjsonExportService;
+import com.example.habitleague.export.service.NdjsonExportService.ExportSlot;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Exportación NDJSON para procesos de análisis:
+ * /api/export/challenges, /members, /evidences y /prize-distributions
+ * (solo administradores)
+ */
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final NdjsonExportService exportService;
+
+    @GetMapping("/{dataset}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void export(@PathVariable String dataset, HttpServletResponse response) throws IOException {
+        ExportDataset target;
+        try {
+            target = ExportDataset.valueOf(dataset.replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Conjunto de datos no exportable: " + dataset);
+        }
+
+        try (ExportSlot slot = exportService.reserve()) {
+            response.setContentType(NDJSON);
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dataset + ".ndjson\"");
+            exportService.export(slot, target, response.getOutputStream());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.habitleague.export.dto;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.challenge.model.ChallengeStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record ChallengeExportRow(
+        Long id,
+        String name,
+        ChallengeCategory category,
+        ChallengeStatus status,
+        BigDecimal entryFee,
+        Integer durationDays,
+        LocalDate startDate,
+        LocalDate endDate,
+        Boolean featured,
+        Integer memberCount,
+        BigDecimal totalPricepool,
+        Integer activeParticipants,
+        Boolean prizesDistributed,
+        Long createdById) {
+}
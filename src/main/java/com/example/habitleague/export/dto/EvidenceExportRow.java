@@ -0,0 +1,19 @@
+package com.example.habitleague.export.dto;
+
+import com.example.habitleague.evidence.model.EvidenceStatus;
+
+import java.time.LocalDateTime;
+
+public record EvidenceExportRow(
+        Long id,
+        Long challengeMemberId,
+        String imageUrl,
+        EvidenceStatus status,
+        Boolean aiValidated,
+        Boolean locationValid,
+        Double latitude,
+        Double longitude,
+        LocalDateTime submittedAt,
+        LocalDateTime validatedAt,
+        Long duplicateOfEvidenceId) {
+}
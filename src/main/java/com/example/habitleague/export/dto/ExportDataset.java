@@ -0,0 +1,11 @@
+package com.example.habitleague.export.dto;
+
+/**
+ * Conjuntos de datos exportables (el nombre en minúsculas es el segmento de la URL)
+ */
+public enum ExportDataset {
+    CHALLENGES,
+    MEMBERS,
+    EVIDENCES,
+    PRIZE_DISTRIBUTIONS
+}
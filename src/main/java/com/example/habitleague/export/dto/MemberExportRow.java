@@ -0,0 +1,16 @@
+package com.example.habitleague.export.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record MemberExportRow(
+        Long id,
+        Long challengeId,
+        Long userId,
+        LocalDate joinedAt,
+        Integer progressDays,
+        BigDecimal totalPenalties,
+        Boolean paymentCompleted,
+        Boolean locationRegistered,
+        Boolean hasCompleted) {
+}
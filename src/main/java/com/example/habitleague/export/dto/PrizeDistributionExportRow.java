@@ -0,0 +1,15 @@
+package com.example.habitleague.export.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record PrizeDistributionExportRow(
+        Long id,
+        Long challengeId,
+        Long challengeMemberId,
+        BigDecimal prizeAmount,
+        Boolean paid,
+        String paymentTransactionId,
+        LocalDateTime createdAt,
+        LocalDateTime paidAt) {
+}
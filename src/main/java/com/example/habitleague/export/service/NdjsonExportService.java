@@ -0,0 +1,154 @@
+package com.example.habitleague.export.service;
+
+import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.repository.PrizeDistributionRepository;
+import com.example.habitleague.evidence.repository.EvidenceRepository;
+import com.example.habitleague.export.dto.ExportDataset;
+import com.example.habitleague.shared.exception.TooManyRequestsException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Exporta tablas completas como NDJSON (un objeto JSON por línea). Las filas se leen con
+ * un cursor de base de datos y se escriben directamente en la salida, sin acumular listas,
+ * así que la memoria usada no depende del número de filas. La escritura es bloqueante: si
+ * el cliente lee despacio, la lectura del cursor también se detiene. Como cada exportación
+ * retiene una conexión mientras dura, se limita el número de exportaciones simultáneas y
+ * su duración.
+ */
+@Service
+@Slf4j
+public class NdjsonExportService {
+
+    private final ChallengeRepository challengeRepository;
+    private final ChallengeMemberRepository memberRepository;
+    private final EvidenceRepository evidenceRepository;
+    private final PrizeDistributionRepository prizeDistributionRepository;
+    private final ObjectWriter rowWriter;
+    private final int flushEveryRows;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore exportPermits;
+    private final long timeoutNanos;
+
+    public NdjsonExportService(ChallengeRepository challengeRepository,
+                               ChallengeMemberRepository memberRepository,
+                               EvidenceRepository evidenceRepository,
+                               PrizeDistributionRepository prizeDistributionRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${export.flush-every-rows:1000}") int flushEveryRows,
+                               @Value("${export.max-concurrent:2}") int maxConcurrent,
+                               @Value("${export.timeout-seconds:600}") int timeoutSeconds) {
+        this.challengeRepository = challengeRepository;
+        this.memberRepository = memberRepository;
+        this.evidenceRepository = evidenceRepository;
+        this.prizeDistributionRepository = prizeDistributionRepository;
+        // El vaciado del buffer se controla aquí, no después de cada fila
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.flushEveryRows = Math.max(1, flushEveryRows);
+        // El timeout de la transacción se aplica como timeout de la consulta; el de la
+        // escritura lo controla write(), porque un cliente lento no ejecuta sentencias nuevas
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout(Math.max(1, timeoutSeconds));
+        this.exportPermits = new Semaphore(Math.max(1, maxConcurrent));
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(1, timeoutSeconds));
+    }
+
+    /**
+     * Reserva un hueco para exportar. Se pide antes de escribir cabeceras, para poder
+     * responder 429 si ya hay demasiadas exportaciones en curso, y se libera al cerrarlo.
+     *
+     * @throws TooManyRequestsException si se alcanzó export.max-concurrent
+     */
+    public ExportSlot reserve() {
+        if (!exportPermits.tryAcquire()) {
+            throw new TooManyRequestsException("Hay demasiadas exportaciones en curso, inténtalo más tarde");
+        }
+        AtomicBoolean released = new AtomicBoolean(false);
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                exportPermits.release();
+            }
+        };
+    }
+
+    public interface ExportSlot extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Escribe el conjunto de datos en la salida. Exige el hueco reservado con {@link #reserve()}.
+     *
+     * @return número de filas exportadas
+     */
+    public long export(ExportSlot slot, ExportDataset dataset, OutputStream out) throws IOException {
+        Objects.requireNonNull(slot, "Se necesita un hueco de exportación reservado");
+        long start = System.currentTimeMillis();
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            Long rows = transactionTemplate.execute(status -> {
+                try (Stream<?> stream = openStream(dataset)) {
+                    return write(stream, out, deadline);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exportación {}: {} filas en {} ms", dataset, rows, System.currentTimeMillis() - start);
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Stream<?> openStream(ExportDataset dataset) {
+        return switch (dataset) {
+            case CHALLENGES -> challengeRepository.streamExportRows();
+            case MEMBERS -> memberRepository.streamExportRows();
+            case EVIDENCES -> evidenceRepository.streamExportRows();
+            case PRIZE_DISTRIBUTIONS -> prizeDistributionRepository.streamExportRows();
+        };
+    }
+
+    private long write(Stream<?> stream, OutputStream out, long deadline) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = rowWriter.getFactory().createGenerator(out)) {
+            // La respuesta la cierra el contenedor
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sin el espacio que Jackson pone entre valores raíz: cada línea empieza en '{'
+            generator.setRootValueSeparator(null);
+            Iterator<?> rows = stream.iterator();
+            while (rows.hasNext()) {
+                rowWriter.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+                if (++count % flushEveryRows == 0) {
+                    generator.flush();
+                    if (System.nanoTime() > deadline) {
+                        throw new IOException("Exportación cancelada tras " + count + " filas: superó export.timeout-seconds");
+                    }
+                }
+            }
+            generator.flush();
+        }
+        return count;
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.habitleague.location.controller;
 
 import com.example.habitleague.location.dto.LocationRegistrationResponse;
+import com.example.habitleague.location.model.GeoDistance;
 import com.example.habitleague.location.service.LocationRegistrationService;
+import com.example.habitleague.location.service.RegisteredLocationIndex;
 import com.example.habitleague.shared.exception.ChallengeException;
 import com.example.habitleague.user.model.User;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +25,7 @@ import java.util.Optional;
 public class LocationController {
 
     private final LocationRegistrationService locationRegistrationService;
+    private final RegisteredLocationIndex locationIndex;
 
     @GetMapping("/my-registrations")
     @Transactional(readOnly = true)
@@ -124,8 +127,7 @@ public class LocationController {
             @RequestParam Double targetLng,
             @RequestParam(defaultValue = "100") Double radiusMeters) {
 
-        // Calcular distancia simulada (fórmula haversine simplificada)
-        double distance = calculateDistance(userLat, userLng, targetLat, targetLng);
+        double distance = GeoDistance.haversineMeters(userLat, userLng, targetLat, targetLng);
         boolean isWithinRadius = distance <= radiusMeters;
 
         Map<String, Object> response = Map.of(
@@ -142,11 +144,26 @@ public class LocationController {
         return ResponseEntity.ok(response);
     }
 
-    private double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
-        // Simulación simple de cálculo de distancia
-        // En producción usarías una implementación real de la fórmula haversine
-        double deltaLat = Math.abs(lat1 - lat2);
-        double deltaLng = Math.abs(lng1 - lng2);
-        return (deltaLat + deltaLng) * 111000; // Aproximación muy básica en metros
+    // Challenges cuya ubicación (la registrada por el creador) está dentro del radio
+    @GetMapping("/within")
+    public ResponseEntity<List<Map<String, Object>>> findChallengesWithin(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "1000") Double radiusMeters) {
+
+        if (radiusMeters <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Map<String, Object>> results = locationIndex.findChallengesWithin(latitude, longitude, radiusMeters)
+            .stream()
+            .map(hit -> Map.<String, Object>of(
+                "challengeId", hit.location().challengeId(),
+                "latitude", hit.location().latitude(),
+                "longitude", hit.location().longitude(),
+                "distance", hit.distanceMeters()))
+            .toList();
+
+        return ResponseEntity.ok(results);
     }
-} 
\ No newline at end of file
+}
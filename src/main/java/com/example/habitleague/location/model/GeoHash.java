@@ -0,0 +1,133 @@
+package com.example.habitleague.location.model;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Codificación geohash (base 32). Las celdas con un prefijo común son vecinas, por lo
+ * que un radio se cubre con unas pocas celdas y cada celda es un rango de claves ordenadas.
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    public static String encode(double latitude, double longitude) {
+        return encode(latitude, longitude, MAX_PRECISION);
+    }
+
+    /**
+     * Alto de una celda en grados de latitud
+     */
+    public static double cellHeightDegrees(int precision) {
+        int latBits = (5 * precision) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    /**
+     * Ancho de una celda en grados de longitud
+     */
+    public static double cellWidthDegrees(int precision) {
+        int lngBits = (5 * precision + 1) / 2;
+        return 360.0 / (1L << lngBits);
+    }
+
+    /**
+     * Celdas que cubren el círculo de radio indicado. Se elige la precisión más fina
+     * cuyas celdas miden al menos el radio, de modo que bastan unas pocas celdas.
+     */
+    public static List<String> coveringCells(double latitude, double longitude, double radiusMeters) {
+        double angular = radiusMeters / GeoDistance.EARTH_RADIUS_METERS;
+        double deltaLat = Math.toDegrees(angular);
+        double minLat = Math.max(-90, latitude - deltaLat);
+        double maxLat = Math.min(90, latitude + deltaLat);
+
+        // Si el círculo alcanza un polo abarca todas las longitudes; si no, el ancho en
+        // longitud del casquete esférico es asin(sen(radio) / cos(latitud))
+        double deltaLng = 180;
+        if (latitude - deltaLat > -90 && latitude + deltaLat < 90) {
+            double ratio = Math.sin(angular) / Math.cos(Math.toRadians(latitude));
+            if (ratio < 1) {
+                deltaLng = Math.toDegrees(Math.asin(ratio));
+            }
+        }
+
+        // Las celdas más estrechas son las del borde más cercano al polo
+        double farthestLat = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double cosLat = Math.max(Math.cos(Math.toRadians(farthestLat)), 0.01);
+        int precision = 1;
+        for (int p = MAX_PRECISION; p >= 1; p--) {
+            double heightMeters = cellHeightDegrees(p) * GeoDistance.METERS_PER_DEGREE;
+            double widthMeters = cellWidthDegrees(p) * GeoDistance.METERS_PER_DEGREE * cosLat;
+            if (heightMeters >= radiusMeters && widthMeters >= radiusMeters) {
+                precision = p;
+                break;
+            }
+        }
+
+        double stepLat = cellHeightDegrees(precision);
+        double stepLng = cellWidthDegrees(precision);
+        double minLng = deltaLng >= 180 ? -180 : longitude - deltaLng;
+        double maxLng = deltaLng >= 180 ? 180 : longitude + deltaLng;
+
+        Set<String> cells = new LinkedHashSet<>();
+        for (double lat = minLat; lat < maxLat + stepLat; lat += stepLat) {
+            double cellLat = Math.min(lat, maxLat);
+            for (double lng = minLng; lng < maxLng + stepLng; lng += stepLng) {
+                cells.add(encode(cellLat, normalizeLongitude(Math.min(lng, maxLng)), precision));
+            }
+        }
+        return List.copyOf(cells);
+    }
+
+    private static double normalizeLongitude(double longitude) {
+        if (longitude >= -180 && longitude < 180) {
+            return longitude;
+        }
+        return ((longitude + 180) % 360 + 360) % 360 - 180;
+    }
+}
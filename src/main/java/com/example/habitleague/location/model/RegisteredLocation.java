@@ -7,7 +7,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "registered_locations")
+@Table(name = "registered_locations", indexes = {
+    @Index(name = "idx_registered_locations_geohash", columnList = "geohash")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,6 +39,9 @@ public class RegisteredLocation {
     @Column
     private Double toleranceRadius; // Radio de tolerancia en metros para verificar evidencias
 
+    @Column(length = GeoHash.MAX_PRECISION)
+    private String geohash; // Celda geohash de máxima precisión (índice espacial)
+
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "challenge_member_id", nullable = false)
     private ChallengeMember challengeMember;
@@ -46,5 +51,17 @@ public class RegisteredLocation {
         if (registeredAt == null) {
             registeredAt = LocalDateTime.now();
         }
+        updateGeohash();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updateGeohash();
+    }
+
+    public void updateGeohash() {
+        if (latitude != null && longitude != null) {
+            geohash = GeoHash.encode(latitude, longitude);
+        }
     }
 } 
\ No newline at end of file
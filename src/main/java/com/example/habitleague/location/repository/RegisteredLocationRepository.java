@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +29,36 @@ public interface RegisteredLocationRepository extends JpaRepository<RegisteredLo
     );
     
     boolean existsByChallengeMember(ChallengeMember challengeMember);
+    
+    // Ubicación del creador: una sola consulta con el miembro y el challenge ya cargados
+    @Query("SELECT rl FROM RegisteredLocation rl JOIN FETCH rl.challengeMember cm JOIN FETCH cm.challenge c " +
+           "WHERE c.id = :challengeId AND cm.user = c.createdBy")
+    List<RegisteredLocation> findCreatorLocationsByChallengeId(@Param("challengeId") Long challengeId);
+    
+    @Query("SELECT rl FROM RegisteredLocation rl JOIN FETCH rl.challengeMember cm JOIN FETCH cm.challenge c " +
+           "WHERE c.id IN :challengeIds AND cm.user = c.createdBy")
+    List<RegisteredLocation> findCreatorLocationsByChallengeIds(@Param("challengeIds") Collection<Long> challengeIds);
+    
+    // Índice espacial en memoria
+    List<RegisteredLocation> findByGeohashIsNull();
+    
+    @Query("SELECT rl.id AS id, c.id AS challengeId, cm.user.id AS userId, " +
+           "rl.latitude AS latitude, rl.longitude AS longitude, rl.geohash AS geohash, " +
+           "CASE WHEN cm.user.id = c.createdBy.id THEN true ELSE false END AS creator " +
+           "FROM RegisteredLocation rl JOIN rl.challengeMember cm JOIN cm.challenge c " +
+           "WHERE rl.id > :afterId AND rl.geohash IS NOT NULL ORDER BY rl.id")
+    List<IndexedLocationView> findIndexViewsAfter(@Param("afterId") Long afterId);
+    
+    /**
+     * Proyección mínima de una ubicación para el índice espacial
+     */
+    interface IndexedLocationView {
+        Long getId();
+        Long getChallengeId();
+        Long getUserId();
+        Double getLatitude();
+        Double getLongitude();
+        String getGeohash();
+        Boolean getCreator();
+    }
 } 
\ No newline at end of file
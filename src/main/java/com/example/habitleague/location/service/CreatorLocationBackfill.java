@@ -0,0 +1,95 @@
+package com.example.habitleague.location.service;
+
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.service.SchedulerLeaseService;
+import com.example.habitleague.location.model.RegisteredLocation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Migración única: enlaza la ubicación del creador en los challenges creados antes de existir
+ * la referencia. La ejecuta una sola réplica bajo un lease y, al terminar, el lease queda
+ * marcado como completado para que los siguientes arranques no vuelvan a recorrer la tabla.
+ * Cada lote se confirma en su propia transacción.
+ */
+@Component
+@Slf4j
+public class CreatorLocationBackfill {
+
+    private static final String LEASE_NAME = "migration-creator-location-backfill";
+    private static final int BATCH_SIZE = 500;
+
+    private final ChallengeRepository challengeRepository;
+    private final LocationRegistrationService locationRegistrationService;
+    private final SchedulerLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    public CreatorLocationBackfill(
+            ChallengeRepository challengeRepository,
+            LocationRegistrationService locationRegistrationService,
+            SchedulerLeaseService leaseService,
+            PlatformTransactionManager transactionManager) {
+        this.challengeRepository = challengeRepository;
+        this.locationRegistrationService = locationRegistrationService;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runOnce() {
+        if (leaseService.getLastCompletedDate(LEASE_NAME).isPresent()) {
+            return;
+        }
+        // Si otra réplica la está ejecutando, este nodo no hace nada
+        leaseService.runWithLease(LEASE_NAME, LocalDate.now(), () -> {
+            // Re-lectura bajo el lease: la réplica anterior pudo terminar entre la comprobación y la toma
+            if (leaseService.getLastCompletedDate(LEASE_NAME).isPresent()) {
+                return true;
+            }
+            backfill();
+            return true;
+        });
+    }
+
+    private void backfill() {
+        long afterId = 0;
+        int updated = 0;
+        while (true) {
+            long cursor = afterId;
+            BatchResult batch = transactionTemplate.execute(status -> linkBatch(cursor));
+            if (batch == null || batch.lastId() == null) {
+                break;
+            }
+            afterId = batch.lastId();
+            updated += batch.updated();
+        }
+        log.info("Migración de ubicación del creador completada: {} challenges enlazados", updated);
+    }
+
+    // Los challenges sin ubicación del creador siguen en NULL; el cursor por id evita releerlos
+    private BatchResult linkBatch(long afterId) {
+        List<Long> challengeIds = challengeRepository.findIdsWithoutCreatorLocationAfter(
+                afterId, PageRequest.of(0, BATCH_SIZE));
+        if (challengeIds.isEmpty()) {
+            return new BatchResult(null, 0);
+        }
+        int updated = 0;
+        for (Map.Entry<Long, RegisteredLocation> entry
+                : locationRegistrationService.getCreatorLocations(challengeIds).entrySet()) {
+            updated += challengeRepository.updateCreatorLocation(entry.getKey(), entry.getValue().getId());
+        }
+        return new BatchResult(challengeIds.get(challengeIds.size() - 1), updated);
+    }
+
+    private record BatchResult(Long lastId, int updated) {
+    }
+}
@@ -2,6 +2,7 @@ package com.example.habitleague.location.service;
 
 import com.example.habitleague.evidence.model.Evidence;
 import com.example.habitleague.location.model.EvidenceLocationVerification;
+import com.example.habitleague.location.model.GeoDistance;
 import com.example.habitleague.location.model.LocationVerificationResult;
 import com.example.habitleague.location.model.RegisteredLocation;
 import com.example.habitleague.location.repository.RegisteredLocationRepository;
@@ -34,7 +35,7 @@ public class EvidenceLocationVerificationService {
                 .orElseThrow(() -> new ChallengeException("No hay ubicación registrada para este usuario en el challenge"));
 
         // Calcular distancia entre ubicación actual y registrada
-        double distance = calculateDistance(
+        double distance = GeoDistance.haversineMeters(
                 currentLatitude, currentLongitude,
                 registeredLocation.getLatitude(), registeredLocation.getLongitude()
         );
@@ -67,24 +68,6 @@ public class EvidenceLocationVerificationService {
                 .build();
     }
 
-    /**
-     * Calcula la distancia entre dos puntos usando la fórmula de Haversine
-     */
-    private double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
-        final int R = 6371; // Radio de la Tierra en kilómetros
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lngDistance = Math.toRadians(lng2 - lng1);
-        
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lngDistance / 2) * Math.sin(lngDistance / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return R * c * 1000; // Convertir a metros
-    }
-
     /**
      * Verifica si una ubicación es válida para enviar evidencia
      */
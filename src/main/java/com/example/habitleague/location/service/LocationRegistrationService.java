@@ -1,21 +1,29 @@
 package com.example.habitleague.location.service;
 
+import com.example.habitleague.challenge.model.Challenge;
 import com.example.habitleague.challenge.model.ChallengeMember;
 import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
 import com.example.habitleague.location.dto.LocationRegistrationRequest;
 import com.example.habitleague.location.dto.LocationRegistrationResponse;
 import com.example.habitleague.location.model.RegisteredLocation;
 import com.example.habitleague.location.repository.RegisteredLocationRepository;
+import com.example.habitleague.shared.event.LocationRegisteredEvent;
 import com.example.habitleague.shared.exception.ChallengeException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,6 +32,8 @@ public class LocationRegistrationService {
 
     private final RegisteredLocationRepository registeredLocationRepository;
     private final ChallengeMemberRepository challengeMemberRepository;
+    private final ChallengeRepository challengeRepository;
+    private final ApplicationEventPublisher publisher;
     private final Random random = new Random();
 
     // Direcciones simuladas para diferentes coordenadas
@@ -62,6 +72,16 @@ public class LocationRegistrationService {
         
         log.info("Ubicación registrada exitosamente con ID: {}", savedLocation.getId());
 
+        // La ubicación del creador queda enlazada en el challenge para los listados
+        Challenge challenge = challengeMember.getChallenge();
+        if (challenge.getCreatedBy().getId().equals(challengeMember.getUser().getId())) {
+            challenge.setCreatorLocation(savedLocation);
+            challengeRepository.updateCreatorLocation(challenge.getId(), savedLocation.getId());
+        }
+
+        publisher.publishEvent(new LocationRegisteredEvent(
+                savedLocation.getId(), challengeMember.getChallenge().getId()));
+
         return convertToResponse(savedLocation);
     }
 
@@ -130,10 +150,8 @@ public class LocationRegistrationService {
         try {
             // Buscar la ubicación del creador del challenge
             Optional<RegisteredLocation> locationOpt = registeredLocationRepository
-                    .findByChallengeId(challengeId)
+                    .findCreatorLocationsByChallengeId(challengeId)
                     .stream()
-                    .filter(location -> location.getChallengeMember().getUser().getId()
-                            .equals(location.getChallengeMember().getChallenge().getCreatedBy().getId()))
                     .findFirst();
             
             if (locationOpt.isPresent()) {
@@ -152,6 +170,34 @@ public class LocationRegistrationService {
         }
     }
 
+    /**
+     * Ubicación del creador de varios challenges en una sola consulta.
+     * Los challenges sin ubicación del creador no aparecen en el mapa.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, RegisteredLocation> getCreatorLocations(Collection<Long> challengeIds) {
+        if (challengeIds.isEmpty()) {
+            return Map.of();
+        }
+        return registeredLocationRepository.findCreatorLocationsByChallengeIds(challengeIds).stream()
+                .collect(Collectors.toMap(
+                        location -> location.getChallengeMember().getChallenge().getId(),
+                        Function.identity(),
+                        (first, second) -> first));
+    }
+
+    /**
+     * Ubicaciones registradas por id, en una sola consulta
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, RegisteredLocation> getLocationsByIds(Collection<Long> registrationIds) {
+        if (registrationIds.isEmpty()) {
+            return Map.of();
+        }
+        return registeredLocationRepository.findAllById(registrationIds).stream()
+                .collect(Collectors.toMap(RegisteredLocation::getId, Function.identity()));
+    }
+
     private RegisteredLocation simulateLocationRegistration(LocationRegistrationRequest request, ChallengeMember challengeMember) {
         // Usar la dirección real proporcionada por el usuario
         String address = request.getAddress() != null ? 
@@ -0,0 +1,235 @@
+package com.example.habitleague.location.service;
+
+import com.example.habitleague.location.model.GeoDistance;
+import com.example.habitleague.location.model.GeoHash;
+import com.example.habitleague.location.model.RegisteredLocation;
+import com.example.habitleague.location.repository.RegisteredLocationRepository;
+import com.example.habitleague.location.repository.RegisteredLocationRepository.IndexedLocationView;
+import com.example.habitleague.shared.event.LocationRegisteredEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice espacial en memoria de las ubicaciones registradas. Las entradas se ordenan
+ * por geohash, así que cada celda de la cobertura de un radio es un rango de claves;
+ * solo los candidatos de esas celdas se filtran con la distancia exacta.
+ */
+@Component
+@Slf4j
+public class RegisteredLocationIndex {
+
+    private final RegisteredLocationRepository locationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Clave: geohash + ":" + id de la ubicación
+    private volatile ConcurrentSkipListMap<String, IndexedLocation> entries = new ConcurrentSkipListMap<>();
+    // Solo las ubicaciones de los creadores (una por challenge)
+    private volatile ConcurrentSkipListMap<String, IndexedLocation> challengeEntries = new ConcurrentSkipListMap<>();
+    private volatile long lastLoadedId = 0;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final double knnInitialRadiusMeters;
+    private final double knnMaxRadiusMeters;
+
+    public RegisteredLocationIndex(RegisteredLocationRepository locationRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${location.index.knn-initial-radius-meters:2000}") double knnInitialRadiusMeters,
+                                   @Value("${location.index.knn-max-radius-meters:20000000}") double knnMaxRadiusMeters) {
+        this.locationRepository = locationRepository;
+        this.knnInitialRadiusMeters = knnInitialRadiusMeters;
+        this.knnMaxRadiusMeters = knnMaxRadiusMeters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // También se usa desde AFTER_COMMIT, donde la transacción original ya terminó
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Ubicaciones a menos de {@code radiusMeters} del punto, ordenadas por distancia
+     */
+    public List<LocationHit> findWithin(double latitude, double longitude, double radiusMeters) {
+        return search(entries, latitude, longitude, radiusMeters);
+    }
+
+    /**
+     * Solo las ubicaciones registradas por el creador de cada challenge
+     * (la ubicación "del challenge"), ordenadas por distancia
+     */
+    public List<LocationHit> findChallengesWithin(double latitude, double longitude, double radiusMeters) {
+        return search(challengeEntries, latitude, longitude, radiusMeters);
+    }
+
+    /**
+     * Los {@code k} challenges más cercanos dentro de {@code maxRadiusMeters}. El radio de
+     * búsqueda crece por anillos hasta reunir k candidatos; como cada búsqueda es exacta
+     * dentro de su radio, los k primeros son los k vecinos más cercanos.
+     */
+    public List<LocationHit> findNearestChallenges(double latitude, double longitude, int k, double maxRadiusMeters) {
+        double limit = Math.min(maxRadiusMeters, knnMaxRadiusMeters);
+        double radius = Math.min(knnInitialRadiusMeters, limit);
+        NavigableMap<String, IndexedLocation> snapshot = challengeEntries;
+
+        List<LocationHit> hits = search(snapshot, latitude, longitude, radius);
+        while (hits.size() < k && radius < limit) {
+            radius = Math.min(radius * 4, limit);
+            hits = search(snapshot, latitude, longitude, radius);
+        }
+        return hits.size() > k ? hits.subList(0, k) : hits;
+    }
+
+    private List<LocationHit> search(NavigableMap<String, IndexedLocation> snapshot,
+                                     double latitude, double longitude, double radiusMeters) {
+        List<LocationHit> hits = new ArrayList<>();
+
+        for (String cell : GeoHash.coveringCells(latitude, longitude, radiusMeters)) {
+            for (IndexedLocation location : snapshot.subMap(cell, true, cell + Character.MAX_VALUE, false).values()) {
+                double distance = GeoDistance.haversineMeters(
+                    latitude, longitude, location.latitude(), location.longitude());
+                if (distance <= radiusMeters) {
+                    hits.add(new LocationHit(location, distance));
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(LocationHit::distanceMeters));
+        return hits;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int challengeCount() {
+        return challengeEntries.size();
+    }
+
+    /**
+     * Carga inicial: completa el geohash de filas antiguas y construye el índice
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        int backfilled = backfillGeohashes();
+        if (backfilled > 0) {
+            log.info("Geohash calculado para {} ubicaciones existentes", backfilled);
+        }
+        rebuild();
+    }
+
+    /**
+     * Incorpora las ubicaciones nuevas cuando se confirma su registro
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLocationRegistered(LocationRegisteredEvent event) {
+        refreshIncremental();
+    }
+
+    /**
+     * Incorpora ubicaciones registradas en otros nodos
+     */
+    @Scheduled(fixedDelayString = "${location.index.incremental-refresh-ms:30000}",
+               initialDelayString = "${location.index.incremental-refresh-ms:30000}")
+    public void refreshIncremental() {
+        refreshLock.lock();
+        try {
+            List<IndexedLocationView> views = transactionTemplate.execute(status ->
+                locationRepository.findIndexViewsAfter(lastLoadedId));
+            if (views == null || views.isEmpty()) {
+                return;
+            }
+            for (IndexedLocationView view : views) {
+                IndexedLocation location = IndexedLocation.from(view);
+                put(entries, challengeEntries, location);
+                lastLoadedId = Math.max(lastLoadedId, location.id());
+            }
+            log.debug("Índice espacial: {} ubicaciones nuevas ({} en total)", views.size(), entries.size());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Reconstrucción completa periódica (recoge bajas y cambios de coordenadas)
+     */
+    @Scheduled(fixedDelayString = "${location.index.full-refresh-ms:3600000}",
+               initialDelayString = "${location.index.full-refresh-ms:3600000}")
+    public void rebuild() {
+        refreshLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            List<IndexedLocationView> views = transactionTemplate.execute(status ->
+                locationRepository.findIndexViewsAfter(0L));
+
+            ConcurrentSkipListMap<String, IndexedLocation> rebuilt = new ConcurrentSkipListMap<>();
+            ConcurrentSkipListMap<String, IndexedLocation> rebuiltChallenges = new ConcurrentSkipListMap<>();
+            long maxId = 0;
+            for (IndexedLocationView view : views) {
+                IndexedLocation location = IndexedLocation.from(view);
+                put(rebuilt, rebuiltChallenges, location);
+                maxId = Math.max(maxId, location.id());
+            }
+            entries = rebuilt;
+            challengeEntries = rebuiltChallenges;
+            lastLoadedId = maxId;
+            log.info("Índice espacial reconstruido: {} ubicaciones en {} ms",
+                rebuilt.size(), System.currentTimeMillis() - start);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private static void put(Map<String, IndexedLocation> all, Map<String, IndexedLocation> challenges,
+                            IndexedLocation location) {
+        all.put(location.key(), location);
+        if (location.creator()) {
+            challenges.put(location.key(), location);
+        }
+    }
+
+    private int backfillGeohashes() {
+        TransactionTemplate writeTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        Integer updated = writeTemplate.execute(status -> {
+            List<RegisteredLocation> pending = locationRepository.findByGeohashIsNull();
+            pending.forEach(RegisteredLocation::updateGeohash);
+            locationRepository.saveAll(pending);
+            return pending.size();
+        });
+        return updated != null ? updated : 0;
+    }
+
+    /**
+     * Ubicación indexada (sin entidades JPA, segura para compartir entre hilos)
+     */
+    public record IndexedLocation(Long id, Long challengeId, Long userId,
+                                  double latitude, double longitude, String geohash, boolean creator) {
+
+        static IndexedLocation from(IndexedLocationView view) {
+            return new IndexedLocation(view.getId(), view.getChallengeId(), view.getUserId(),
+                view.getLatitude(), view.getLongitude(), view.getGeohash(),
+                Boolean.TRUE.equals(view.getCreator()));
+        }
+
+        String key() {
+            return geohash + ":" + id;
+        }
+    }
+
+    public record LocationHit(IndexedLocation location, double distanceMeters) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.habitleague.notification.model;
+
+public enum OutboxEmailStatus {
+    PENDING,    // esperando envío (o reintento)
+    SENDING,    // reclamado por un dispatcher
+    SENT,
+    FAILED      // se agotaron los reintentos
+}
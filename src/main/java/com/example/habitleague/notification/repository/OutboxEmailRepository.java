@@ -0,0 +1,46 @@
+package com.example.habitleague.notification.repository;
+
+import com.example.habitleague.notification.model.OutboxEmail;
+import com.example.habitleague.notification.model.OutboxEmailStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    /**
+     * Correos listos para enviar, bloqueados para este dispatcher. Las filas que ya
+     * bloqueó otro nodo se saltan (SKIP LOCKED) en lugar de esperar.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEmail e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<OutboxEmail> findDispatchable(@Param("status") OutboxEmailStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    // Reclamos de dispatchers que no terminaron (nodo caído durante el envío)
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = com.example.habitleague.notification.model.OutboxEmailStatus.PENDING, " +
+           "e.claimedAt = NULL " +
+           "WHERE e.status = com.example.habitleague.notification.model.OutboxEmailStatus.SENDING " +
+           "AND e.claimedAt < :before")
+    int releaseStaleClaims(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e " +
+           "WHERE e.status = com.example.habitleague.notification.model.OutboxEmailStatus.SENT " +
+           "AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,283 @@
+package com.example.habitleague.notification.service;
+
+import com.example.habitleague.notification.model.OutboxEmail;
+import com.example.habitleague.notification.model.OutboxEmailStatus;
+import com.example.habitleague.notification.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Envía los correos del outbox por lotes. Cada lote se manda con una sola conexión SMTP
+ * (JavaMailSender abre la sesión una vez para todos los mensajes del array). Los fallos
+ * se reintentan con backoff exponencial hasta un máximo de intentos; si falla el servidor
+ * (caído o limitando), el dispatcher se pausa también con backoff.
+ * El número de envíos por minuto está acotado.
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final OutboxEmailRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String fromAddress;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final int maxPerMinute;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final int retentionDays;
+
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    // Límite de envío: mensajes intentados en la ventana del minuto actual
+    private long windowStartMillis = 0;
+    private int sentInWindow = 0;
+    // Pausa tras un error del servidor SMTP
+    private int consecutiveBatchFailures = 0;
+    private long pausedUntilMillis = 0;
+
+    public EmailOutboxDispatcher(
+            OutboxEmailRepository outboxRepository,
+            JavaMailSender mailSender,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${spring.mail.username}") String fromAddress,
+            @Value("${mail.outbox.batch-size:50}") int batchSize,
+            @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${mail.outbox.max-per-minute:120}") int maxPerMinute,
+            @Value("${mail.outbox.initial-backoff-seconds:30}") long initialBackoffSeconds,
+            @Value("${mail.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+            @Value("${mail.outbox.claim-timeout-seconds:300}") long claimTimeoutSeconds,
+            @Value("${mail.outbox.retention-days:7}") int retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fromAddress = fromAddress;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.maxPerMinute = maxPerMinute;
+        this.initialBackoff = Duration.ofSeconds(initialBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.retentionDays = retentionDays;
+        this.sentCounter = Counter.builder("mail.outbox.sent").register(meterRegistry);
+        this.retryCounter = Counter.builder("mail.outbox.failures").tag("final", "false").register(meterRegistry);
+        this.failedCounter = Counter.builder("mail.outbox.failures").tag("final", "true").register(meterRegistry);
+    }
+
+    /**
+     * Vacía el outbox lote a lote mientras haya correos listos y cupo de envío.
+     * Se ejecuta en el pool de correo para no ocupar el hilo del planificador.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:5000}",
+               initialDelayString = "${mail.outbox.poll-interval-ms:5000}")
+    @Async("mailExecutor")
+    public void dispatch() {
+        // Un solo envío a la vez; sin synchronized para no fijar hilos virtuales
+        if (!dispatchLock.tryLock()) {
+            return;
+        }
+        try {
+            dispatchBatches();
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    private void dispatchBatches() {
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (now < pausedUntilMillis) {
+                return;
+            }
+            int budget = remainingBudget(now);
+            if (budget == 0) {
+                return;
+            }
+
+            int limit = Math.min(batchSize, budget);
+            List<PendingEmail> batch = claim(limit);
+            if (batch.isEmpty()) {
+                return;
+            }
+            sentInWindow += batch.size();
+
+            SendResult result = send(batch);
+            complete(batch, result.failures());
+
+            if (result.serverFailure()) {
+                pauseAfterBatchFailure();
+                return;
+            }
+            consecutiveBatchFailures = 0;
+            if (batch.size() < limit) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Borra los correos enviados más antiguos que el periodo de retención
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval-ms:3600000}",
+               initialDelayString = "${mail.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+            outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("Outbox de correo: {} correos enviados eliminados", deleted);
+        }
+    }
+
+    private int remainingBudget(long now) {
+        if (now - windowStartMillis >= 60_000) {
+            windowStartMillis = now;
+            sentInWindow = 0;
+        }
+        return Math.max(0, maxPerMinute - sentInWindow);
+    }
+
+    private List<PendingEmail> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> {
+            int released = outboxRepository.releaseStaleClaims(now.minus(claimTimeout));
+            if (released > 0) {
+                log.warn("Outbox de correo: {} reclamos caducados liberados", released);
+            }
+            List<OutboxEmail> rows = outboxRepository.findDispatchable(
+                OutboxEmailStatus.PENDING, now, PageRequest.of(0, limit));
+            rows.forEach(row -> {
+                row.setStatus(OutboxEmailStatus.SENDING);
+                row.setClaimedAt(now);
+            });
+            return rows.stream().map(PendingEmail::of).toList();
+        });
+    }
+
+    /**
+     * Envía el lote por una sola conexión. Los rechazos de mensajes concretos no pausan
+     * el dispatcher; solo los errores sin detalle por mensaje (conexión, autenticación,
+     * límite del servidor).
+     */
+    private SendResult send(List<PendingEmail> batch) {
+        SimpleMailMessage[] messages = batch.stream().map(this::toMessage).toArray(SimpleMailMessage[]::new);
+        Map<Long, String> failures = new HashMap<>();
+        boolean serverFailure = false;
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            serverFailure = failed.isEmpty();
+            for (int i = 0; i < messages.length; i++) {
+                Exception cause = failed.isEmpty() ? e : failed.get(messages[i]);
+                if (cause != null) {
+                    failures.put(batch.get(i).id(), describe(cause));
+                }
+            }
+        } catch (MailException e) {
+            serverFailure = true;
+            batch.forEach(email -> failures.put(email.id(), describe(e)));
+        }
+        return new SendResult(failures, serverFailure);
+    }
+
+    private void complete(List<PendingEmail> batch, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<OutboxEmail> rows = outboxRepository.findAllById(batch.stream().map(PendingEmail::id).toList());
+            for (OutboxEmail row : rows) {
+                String error = failures.get(row.getId());
+                row.setClaimedAt(null);
+                if (error == null) {
+                    row.setStatus(OutboxEmailStatus.SENT);
+                    row.setSentAt(now);
+                    row.setLastError(null);
+                    sentCounter.increment();
+                    continue;
+                }
+                int attempts = row.getAttempts() + 1;
+                row.setAttempts(attempts);
+                row.setLastError(error);
+                if (attempts >= maxAttempts) {
+                    row.setStatus(OutboxEmailStatus.FAILED);
+                    failedCounter.increment();
+                    log.error("Correo {} a {} descartado tras {} intentos: {}",
+                        row.getId(), row.getRecipient(), attempts, error);
+                } else {
+                    row.setStatus(OutboxEmailStatus.PENDING);
+                    row.setNextAttemptAt(now.plus(backoff(attempts)));
+                    retryCounter.increment();
+                }
+            }
+        });
+        if (failures.isEmpty()) {
+            log.info("Outbox de correo: {} correos enviados", batch.size());
+        } else {
+            log.warn("Outbox de correo: {} enviados, {} con error", batch.size() - failures.size(), failures.size());
+        }
+    }
+
+    private void pauseAfterBatchFailure() {
+        consecutiveBatchFailures++;
+        Duration pause = backoff(consecutiveBatchFailures);
+        pausedUntilMillis = System.currentTimeMillis() + pause.toMillis();
+        log.warn("Outbox de correo: error del servidor SMTP, envíos en pausa durante {} s", pause.toSeconds());
+    }
+
+    private Duration backoff(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private SimpleMailMessage toMessage(PendingEmail email) {
+        SimpleMailMessage msg = new SimpleMailMessage();
+        msg.setFrom(fromAddress);
+        msg.setTo(email.recipient());
+        msg.setSubject(email.subject());
+        msg.setText(email.body());
+        return msg;
+    }
+
+    private static String describe(Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    /**
+     * Errores por id de correo (vacío si todo se envió) y si falló el servidor
+     */
+    private record SendResult(Map<Long, String> failures, boolean serverFailure) {
+    }
+
+    private record PendingEmail(Long id, String recipient, String subject, String body) {
+
+        static PendingEmail of(OutboxEmail email) {
+            return new PendingEmail(email.getId(), email.getRecipient(), email.getSubject(), email.getBody());
+        }
+    }
+}
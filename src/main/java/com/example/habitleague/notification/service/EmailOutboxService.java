@@ -0,0 +1,34 @@
+package com.example.habitleague.notification.service;
+
+import com.example.habitleague.notification.model.OutboxEmail;
+import com.example.habitleague.notification.repository.OutboxEmailRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private final OutboxEmailRepository outboxRepository;
+
+    /**
+     * Guarda el correo en el outbox dentro de la transacción actual; el envío lo hace
+     * {@link EmailOutboxDispatcher} cuando la transacción se confirma
+     */
+    @Transactional
+    public void enqueue(String recipient, String subject, String body) {
+        OutboxEmail email = OutboxEmail.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        outboxRepository.save(email);
+        log.debug("Correo a {} encolado en el outbox: \"{}\"", recipient, subject);
+    }
+}
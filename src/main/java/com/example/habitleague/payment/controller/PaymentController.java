@@ -62,8 +62,7 @@ public class PaymentController {
             @AuthenticationPrincipal User user) {
         
         // Este endpoint será útil para verificar si el usuario ya pagó por un challenge específico
-        // Aquí podrías agregar lógica adicional para obtener el challenge y verificar
-        boolean hasPaid = paymentService.hasUserPaidForChallenge(user, null); // Necesitarías obtener el challenge
+        boolean hasPaid = paymentService.hasUserPaidForChallenge(user, challengeId);
         
         return ResponseEntity.ok(Map.of(
             "hasPaid", hasPaid,
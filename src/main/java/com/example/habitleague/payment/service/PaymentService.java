@@ -2,7 +2,9 @@ package com.example.habitleague.payment.service;
 
 import com.example.habitleague.achievement.service.AchievementEvaluationService;
 import com.example.habitleague.challenge.model.Challenge;
+import com.example.habitleague.challenge.model.ChallengeSnapshot;
 import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.service.ChallengeSnapshotCache;
 import com.example.habitleague.payment.dto.PaymentRequest;
 import com.example.habitleague.payment.dto.PaymentResponse;
 import com.example.habitleague.payment.model.Payment;
@@ -26,15 +28,17 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final ChallengeRepository challengeRepository;
+    private final ChallengeSnapshotCache snapshotCache;
     private final AchievementEvaluationService achievementEvaluationService;
 
     @Transactional
     public PaymentResponse processPayment(PaymentRequest request, User user) {
         log.info("Procesando pago para usuario {} y challenge {}", user.getEmail(), request.getChallengeId());
 
-        // Verificar que el challenge existe
-        Challenge challenge = challengeRepository.findById(request.getChallengeId())
+        // Verificar que el challenge existe (caché de lectura); el pago solo necesita la referencia
+        ChallengeSnapshot snapshot = snapshotCache.find(request.getChallengeId())
                 .orElseThrow(() -> new ChallengeException("Challenge no encontrado"));
+        Challenge challenge = challengeRepository.getReferenceById(snapshot.id());
 
         // Verificar que el usuario no haya pagado ya por este challenge
         boolean alreadyPaid = paymentRepository.existsByUserAndChallengeAndStatus(
@@ -59,8 +63,8 @@ public class PaymentService {
                 .status(savedPayment.getStatus())
                 .createdAt(savedPayment.getCreatedAt())
                 .processedAt(savedPayment.getProcessedAt())
-                .challengeName(challenge.getName())
-                .challengeId(challenge.getId())
+                .challengeName(snapshot.name())
+                .challengeId(snapshot.id())
                 .build();
     }
 
@@ -85,6 +89,12 @@ public class PaymentService {
                 user, challenge, PaymentStatus.SUCCEEDED);
     }
 
+    @Transactional(readOnly = true)
+    public boolean hasUserPaidForChallenge(User user, Long challengeId) {
+        return paymentRepository.existsByUserAndChallengeAndStatus(
+                user, challengeRepository.getReferenceById(challengeId), PaymentStatus.SUCCEEDED);
+    }
+
     /**
      * Procesa un pago de penalización cuando un usuario no completa un reto
      */
@@ -93,9 +103,10 @@ public class PaymentService {
         log.info("Procesando pago de penalización para usuario {} y challenge {}", 
             user.getEmail(), request.getChallengeId());
 
-        // Verificar que el challenge existe
-        Challenge challenge = challengeRepository.findById(request.getChallengeId())
+        // Verificar que el challenge existe (caché de lectura); el pago solo necesita la referencia
+        ChallengeSnapshot snapshot = snapshotCache.find(request.getChallengeId())
                 .orElseThrow(() -> new ChallengeException("Challenge no encontrado"));
+        Challenge challenge = challengeRepository.getReferenceById(snapshot.id());
 
         // Simular procesamiento con Stripe
         Payment payment = simulateStripePayment(request, user, challenge);
@@ -106,7 +117,7 @@ public class PaymentService {
         if (savedPayment.getStatus() == PaymentStatus.SUCCEEDED) {
             achievementEvaluationService.evaluateFirstPenaltyPayment(
                 user.getId(), 
-                challenge.getId()
+                snapshot.id()
             );
         }
         
@@ -121,8 +132,8 @@ public class PaymentService {
                 .status(savedPayment.getStatus())
                 .createdAt(savedPayment.getCreatedAt())
                 .processedAt(savedPayment.getProcessedAt())
-                .challengeName(challenge.getName())
-                .challengeId(challenge.getId())
+                .challengeName(snapshot.name())
+                .challengeId(snapshot.id())
                 .build();
     }
 
@@ -1,33 +1,140 @@
 package com.example.habitleague.shared.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.Locale;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Pools de hilos por tipo de trabajo (bulkheads): correo, notificaciones, validación,
+ * ciclo diario y hashing de contraseñas. Cada uno tiene su tamaño, su cola y su política
+ * de rechazo, así que un SMTP lento no frena las notificaciones ni devuelve trabajo a los
+ * hilos de las peticiones. Todos publican métricas con la etiqueta {@code name}:
+ * executor.active, executor.queued, executor.rejected, executor.queue.wait y executor.task.
+ */
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig implements AsyncConfigurer {
 
+    private final MeterRegistry meterRegistry;
+    private final ExecutorSpec defaultSpec;
+
+    public AsyncConfig(@Lazy MeterRegistry meterRegistry,
+                       @Value("${executors.default.pool-size:4}") int poolSize,
+                       @Value("${executors.default.max-pool-size:16}") int maxPoolSize,
+                       @Value("${executors.default.queue-capacity:500}") int queueCapacity,
+                       @Value("${executors.default.rejection-policy:CALLER_RUNS}") String rejectionPolicy,
+                       @Value("${executors.default.virtual-threads:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.defaultSpec = new ExecutorSpec("default", "habitleague-Async-", poolSize, maxPoolSize,
+            queueCapacity, RejectionPolicy.parse(rejectionPolicy), virtualThreads);
+    }
+
+    /**
+     * Pool de los @Async sin calificar
+     */
     @Bean(name = "applicationTaskExecutor")
     @Override
     public Executor getAsyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        return build(defaultSpec);
+    }
 
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(16);
-        executor.setQueueCapacity(500);
-        executor.setThreadNamePrefix("habitleague-Async-");
+    /**
+     * Envío de correo del outbox. Con una tarea en curso y otra en cola basta: el resto de
+     * ticks se descartan porque la siguiente ejecución ya recoge todo lo pendiente.
+     */
+    @Bean(name = "mailExecutor")
+    public ThreadPoolTaskExecutor mailExecutor(
+            @Value("${executors.mail.pool-size:1}") int poolSize,
+            @Value("${executors.mail.queue-capacity:1}") int queueCapacity,
+            @Value("${executors.mail.rejection-policy:DISCARD}") String rejectionPolicy,
+            @Value("${executors.mail.virtual-threads:false}") boolean virtualThreads) {
+        return build(new ExecutorSpec("mail", "mail-", poolSize, poolSize, queueCapacity,
+            RejectionPolicy.parse(rejectionPolicy), virtualThreads));
+    }
 
+    /**
+     * Notificaciones de logros. Si la cola se llena se descartan (quedan contadas en
+     * executor.rejected) en lugar de bloquear a quien publica el evento.
+     */
+    @Bean(name = "notificationExecutor")
+    public ThreadPoolTaskExecutor notificationExecutor(
+            @Value("${executors.notifications.pool-size:2}") int poolSize,
+            @Value("${executors.notifications.queue-capacity:1000}") int queueCapacity,
+            @Value("${executors.notifications.rejection-policy:DISCARD}") String rejectionPolicy,
+            @Value("${executors.notifications.virtual-threads:false}") boolean virtualThreads) {
+        return build(new ExecutorSpec("notifications", "notification-", poolSize, poolSize, queueCapacity,
+            RejectionPolicy.parse(rejectionPolicy), virtualThreads));
+    }
 
-        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+    /**
+     * Pool acotado para la validación de evidencias (IA + ubicación). Si la cola se llena
+     * la tarea se rechaza y la evidencia queda PENDING hasta que el barrido la reintente.
+     */
+    @Bean(name = "evidenceValidationExecutor")
+    public ThreadPoolTaskExecutor evidenceValidationExecutor(
+            @Value("${executors.validation.pool-size:4}") int poolSize,
+            @Value("${executors.validation.queue-capacity:200}") int queueCapacity,
+            @Value("${executors.validation.rejection-policy:ABORT}") String rejectionPolicy,
+            @Value("${executors.validation.virtual-threads:false}") boolean virtualThreads) {
+        return build(new ExecutorSpec("validation", "evidence-validation-", poolSize, poolSize, queueCapacity,
+            RejectionPolicy.parse(rejectionPolicy), virtualThreads));
+    }
 
-        executor.initialize();
-        return executor;
+    /**
+     * Particiones del ciclo diario. El tamaño del pool es la concurrencia del ciclo
+     * (mantenerlo por debajo del pool de conexiones); la cola admite todas las particiones.
+     */
+    @Bean(name = "lifecycleExecutor")
+    public ThreadPoolTaskExecutor lifecycleExecutor(
+            @Value("${executors.lifecycle.pool-size:4}") int poolSize,
+            @Value("${executors.lifecycle.queue-capacity:10000}") int queueCapacity,
+            @Value("${executors.lifecycle.rejection-policy:ABORT}") String rejectionPolicy,
+            @Value("${executors.lifecycle.virtual-threads:false}") boolean virtualThreads) {
+        return build(new ExecutorSpec("lifecycle", "lifecycle-", poolSize, poolSize, queueCapacity,
+            RejectionPolicy.parse(rejectionPolicy), virtualThreads));
+    }
+
+    /**
+     * Pool acotado para BCrypt (login y registro). La cola es el control de admisión:
+     * si está llena la petición se rechaza con 429 y el resto de endpoints no se ve afectado.
+     */
+    @Bean(name = "passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${auth.password.pool-size:4}") int poolSize,
+            @Value("${auth.password.max-queue-depth:64}") int maxQueueDepth) {
+        return build(new ExecutorSpec("password-hashing", "password-hashing-", poolSize, poolSize, maxQueueDepth,
+            RejectionPolicy.ABORT, false));
+    }
+
+
+    /**
+     * Cargas de las cachés Caffeine (usuarios, membresías, challenges). Un LoadingCache
+     * ejecuta la consulta dentro del bloque synchronized de ConcurrentHashMap.compute, lo
+     * que fija un hilo virtual a su portador durante todo el JDBC; con cachés asíncronas
+     * el mapa solo guarda el future y la consulta corre en un hilo virtual propio.
+     */
+    @Bean(name = "cacheLoadExecutor")
+    public Executor cacheLoadExecutor() {
+        return new VirtualThreadTaskExecutor("cache-load-");
     }
 
 
@@ -37,4 +144,82 @@ public class AsyncConfig implements AsyncConfigurer {
                 System.err.printf("Excepción en @Async - método: %s, causa: %s%n",
                         method.getName(), throwable.getMessage());
     }
+
+    private ThreadPoolTaskExecutor build(ExecutorSpec spec) {
+        Tags tags = Tags.of("name", spec.name());
+        Counter rejected = Counter.builder("executor.rejected").tags(tags).register(meterRegistry);
+        Timer queueWait = Timer.builder("executor.queue.wait").tags(tags).register(meterRegistry);
+        Timer taskTimer = Timer.builder("executor.task").tags(tags).register(meterRegistry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(spec.poolSize());
+        executor.setMaxPoolSize(Math.max(spec.poolSize(), spec.maxPoolSize()));
+        executor.setQueueCapacity(spec.queueCapacity());
+        executor.setThreadNamePrefix(spec.threadNamePrefix());
+        executor.setVirtualThreads(spec.virtualThreads());
+        executor.setRejectedExecutionHandler(countingHandler(spec, rejected));
+        // decorate() se llama al encolar, así que mide también la espera en cola
+        executor.setTaskDecorator(task -> {
+            long enqueuedAt = System.nanoTime();
+            return () -> {
+                long start = System.nanoTime();
+                queueWait.record(start - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    taskTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+        });
+        executor.initialize();
+
+        // Se leen del ThreadPoolTaskExecutor: el pool interno se vuelve a crear al inicializar el bean
+        Gauge.builder("executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+            .tags(tags).register(meterRegistry);
+        Gauge.builder("executor.queued", executor, ThreadPoolTaskExecutor::getQueueSize)
+            .tags(tags).register(meterRegistry);
+        Gauge.builder("executor.pool.size", executor, ThreadPoolTaskExecutor::getPoolSize)
+            .tags(tags).register(meterRegistry);
+        return executor;
+    }
+
+    private static RejectedExecutionHandler countingHandler(ExecutorSpec spec, Counter rejected) {
+        RejectedExecutionHandler delegate = spec.rejectionPolicy().handler();
+        return (task, pool) -> {
+            rejected.increment();
+            if (spec.rejectionPolicy() == RejectionPolicy.DISCARD
+                    || spec.rejectionPolicy() == RejectionPolicy.DISCARD_OLDEST) {
+                log.debug("Pool '{}' saturado: tarea descartada", spec.name());
+            }
+            delegate.rejectedExecution(task, pool);
+        };
+    }
+
+    private record ExecutorSpec(String name, String threadNamePrefix, int poolSize, int maxPoolSize,
+                                int queueCapacity, RejectionPolicy rejectionPolicy, boolean virtualThreads) {
+    }
+
+    /**
+     * Qué hacer con una tarea cuando el pool y la cola están llenos
+     */
+    enum RejectionPolicy {
+        ABORT, CALLER_RUNS, DISCARD, DISCARD_OLDEST;
+
+        static RejectionPolicy parse(String value) {
+            try {
+                return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Política de rechazo desconocida: " + value);
+            }
+        }
+
+        RejectedExecutionHandler handler() {
+            return switch (this) {
+                case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+                case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+                case DISCARD -> new ThreadPoolExecutor.DiscardPolicy();
+                case DISCARD_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            };
+        }
+    }
 }
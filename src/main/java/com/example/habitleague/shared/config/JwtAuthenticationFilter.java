@@ -1,27 +1,45 @@
 package com.example.habitleague.shared.config;
 
 import com.example.habitleague.auth.service.JwtService;
-import com.example.habitleague.user.repository.UserRepository;
+import com.example.habitleague.auth.service.JwtService.VerifiedToken;
+import com.example.habitleague.auth.service.PrincipalCache;
+import com.example.habitleague.user.model.User;
+import com.example.habitleague.user.model.UserRole;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    // Lecturas (GET) sin comprobaciones de rol: sin usuario en caché se autentican con los claims del token
+    private final List<String> claimsOnlyPaths;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            PrincipalCache principalCache,
+            @Value("${auth.claims-only-paths:}") List<String> claimsOnlyPaths) {
+        this.jwtService = jwtService;
+        this.principalCache = principalCache;
+        this.claimsOnlyPaths = claimsOnlyPaths.stream().filter(path -> !path.isBlank()).toList();
+    }
 
     @Override
     protected void doFilterInternal(
@@ -31,7 +49,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -39,13 +56,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractEmail(jwt);
+        VerifiedToken token = jwtService.extractValidToken(jwt);
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            var user = userRepository.findByEmail(userEmail)
-                    .orElse(null);
+        if (token != null && token.subject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            User user = resolvePrincipal(request, token);
 
-            if (user != null && jwtService.isTokenValid(jwt)) {
+            if (user != null) {
                 var authToken = new UsernamePasswordAuthenticationToken(
                         user,
                         null,
@@ -59,4 +76,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * En las rutas de solo claims se usa el usuario en caché si lo hay (mismo retraso que el resto
+     * de rutas); si no, uno construido con los claims, sin consultar la base de datos
+     */
+    private User resolvePrincipal(HttpServletRequest request, VerifiedToken token) {
+        if (isClaimsOnly(request)) {
+            Optional<User> cached = principalCache.findIfPresent(token.subject());
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            User fromClaims = principalFromClaims(token);
+            if (fromClaims != null) {
+                return fromClaims;
+            }
+        }
+        return principalCache.findByEmail(token.subject()).orElse(null);
+    }
+
+    private boolean isClaimsOnly(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        String path = request.getServletPath();
+        return claimsOnlyPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    /**
+     * Usuario con solo id y email; null si el token no trae el id (tokens antiguos). El rol del
+     * token puede estar desactualizado, así que no se usa: el principal siempre es USER.
+     */
+    private static User principalFromClaims(VerifiedToken token) {
+        if (token.userId() == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(token.userId());
+        user.setEmail(token.subject());
+        user.setRole(UserRole.USER);
+        return user;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.habitleague.shared.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Reloj de la zona del negocio: define qué día es "ayer" para el ciclo diario,
+     * la misma zona en la que se dispara su cron
+     */
+    @Bean
+    public Clock lifecycleClock(@Value("${lifecycle.zone:America/Mexico_City}") String zone) {
+        return Clock.system(ZoneId.of(zone));
+    }
+}
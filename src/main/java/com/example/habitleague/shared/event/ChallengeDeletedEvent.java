@@ -0,0 +1,10 @@
+package com.example.habitleague.shared.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class ChallengeDeletedEvent {
+    private final Long challengeId;
+}
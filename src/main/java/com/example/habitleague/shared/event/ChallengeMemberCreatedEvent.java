@@ -0,0 +1,15 @@
+package com.example.habitleague.shared.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al crear la fila de membresía, aunque falten el pago o la ubicación
+ */
+@AllArgsConstructor
+@Getter
+public class ChallengeMemberCreatedEvent {
+    private final Long userId;
+    private final Long challengeId;
+    private final Long challengeMemberId;
+}
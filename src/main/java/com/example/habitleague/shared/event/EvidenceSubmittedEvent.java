@@ -0,0 +1,15 @@
+package com.example.habitleague.shared.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al guardar una evidencia pendiente de validación
+ */
+@AllArgsConstructor
+@Getter
+public class EvidenceSubmittedEvent {
+    private final Long evidenceId;
+    private final Long challengeId;
+    private final Long userId;
+}
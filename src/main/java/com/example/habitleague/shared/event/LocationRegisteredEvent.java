@@ -0,0 +1,14 @@
+package com.example.habitleague.shared.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al registrar la ubicación de un participante
+ */
+@AllArgsConstructor
+@Getter
+public class LocationRegisteredEvent {
+    private final Long registrationId;
+    private final Long challengeId;
+}
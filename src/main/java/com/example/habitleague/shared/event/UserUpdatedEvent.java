@@ -0,0 +1,14 @@
+package com.example.habitleague.shared.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al cambiar los datos o el rol de un usuario
+ */
+@AllArgsConstructor
+@Getter
+public class UserUpdatedEvent {
+    private final Long userId;
+    private final String email;
+}
@@ -2,6 +2,7 @@ package com.example.habitleague.shared.exception;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -114,6 +115,17 @@ public class GlobalExceptionHandler {
         );
     }
 
+    // 429 Too Many Requests – operación saturada (p. ej. hashing de contraseñas)
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequests(
+            TooManyRequestsException ex, HttpServletRequest req) {
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildBody(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                        ex.getMessage(), req.getRequestURI()));
+    }
+
     // 409 Conflict – contenido específico para ChallengeException
     @ExceptionHandler(ChallengeException.class)
     public ResponseEntity<Map<String, Object>> handleChallengeException(ChallengeException ex) {
@@ -0,0 +1,7 @@
+package com.example.habitleague.shared.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
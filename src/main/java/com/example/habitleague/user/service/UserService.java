@@ -1,11 +1,13 @@
 package com.example.habitleague.user.service;
 
+import com.example.habitleague.shared.event.UserUpdatedEvent;
 import com.example.habitleague.user.dto.PatchUserProfileRequest;
 import com.example.habitleague.user.dto.UserProfileResponse;
 import com.example.habitleague.user.model.User;
 import com.example.habitleague.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +19,7 @@ import java.util.Objects;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher publisher;
 
     @Transactional(readOnly = true)
     public UserProfileResponse getProfile(User user) {
@@ -83,6 +86,7 @@ public class UserService {
         // Solo guardar si hay cambios
         if (hasChanges) {
             userRepository.save(user);
+            publisher.publishEvent(new UserUpdatedEvent(user.getId(), user.getEmail()));
             log.info("Perfil actualizado exitosamente para usuario: {}", user.getEmail());
         } else {
             log.debug("No hay cambios para actualizar en el perfil del usuario: {}", user.getEmail());
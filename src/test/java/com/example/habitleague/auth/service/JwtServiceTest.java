@@ -0,0 +1,121 @@
+package com.example.habitleague.auth.service;
+
+import com.example.habitleague.auth.service.JwtService.VerifiedToken;
+import com.example.habitleague.user.model.User;
+import com.example.habitleague.user.model.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "habitleague-test-secret-0123456789-abcdefghij";
+    private static final String OTHER_SECRET = "another-secret-for-forged-tokens-0123456789xyz";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void tokenCarriesSubjectUserIdAndRole() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100, registry);
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("ana@example.com");
+        user.setRole(UserRole.ADMIN);
+
+        VerifiedToken verified = jwtService.extractValidToken(jwtService.generateToken(user));
+
+        assertThat(verified.subject()).isEqualTo("ana@example.com");
+        assertThat(verified.userId()).isEqualTo(7L);
+        assertThat(verified.role()).isEqualTo("ADMIN");
+        assertThat(verified.expiresAt()).isAfter(Instant.now());
+    }
+
+    @Test
+    void concurrentRequestsShareOneImmutableEntry() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100, registry);
+        String token = jwtService.generateToken("ana@example.com");
+
+        VerifiedToken first = jwtService.extractValidToken(token);
+        VerifiedToken second = jwtService.extractValidToken(token);
+
+        // La misma entrada inmutable para todas las peticiones con el token
+        assertThat(second).isSameAs(first);
+        assertThat(first.userId()).isNull();
+        assertThat(first.role()).isNull();
+    }
+
+    @Test
+    void repeatedVerificationIsServedFromTheCache() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100, registry);
+        String token = jwtService.generateToken("ana@example.com");
+
+        assertThat(jwtService.extractEmail(token)).isEqualTo("ana@example.com");
+        assertThat(jwtService.isTokenValid(token)).isTrue();
+        assertThat(jwtService.extractEmail(token)).isEqualTo("ana@example.com");
+
+        assertThat(cacheGets("miss")).isEqualTo(1);
+        assertThat(cacheGets("hit")).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsForgedTamperedAndBlankTokens() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100, registry);
+        String forged = new JwtService(OTHER_SECRET, 60_000, 100, new SimpleMeterRegistry())
+            .generateToken("ana@example.com");
+        String token = jwtService.generateToken("ana@example.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(jwtService.isTokenValid(forged)).isFalse();
+        assertThat(jwtService.isTokenValid(tampered)).isFalse();
+        assertThat(jwtService.isTokenValid("no-es-un-jwt")).isFalse();
+        assertThat(jwtService.isTokenValid("")).isFalse();
+        assertThat(jwtService.isTokenValid(null)).isFalse();
+        assertThat(jwtService.extractEmail(forged)).isNull();
+    }
+
+    @Test
+    void cachedTokenExpiresAtItsExpClaim() throws InterruptedException {
+        // exp tiene precisión de segundos: el token vence entre 1 y 2 s después de emitirse
+        JwtService jwtService = new JwtService(SECRET, 2_000, 100, registry);
+        String token = jwtService.generateToken("ana@example.com");
+        VerifiedToken verified = jwtService.extractValidToken(token);
+        assertThat(verified).isNotNull();
+        assertThat(jwtService.isTokenValid(token)).isTrue();
+        double hitsBeforeExpiry = cacheGets("hit");
+
+        long untilExpiry = verified.expiresAt().toEpochMilli() - System.currentTimeMillis();
+        Thread.sleep(Math.max(0, untilExpiry) + 50);
+
+        // La entrada caduca en la caché (fallo, no acierto) y el token ya no verifica
+        assertThat(jwtService.isTokenValid(token)).isFalse();
+        assertThat(cacheGets("hit")).isEqualTo(hitsBeforeExpiry);
+        assertThat(cacheGets("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void cacheIsBoundedByMaxSize() throws InterruptedException {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 10, registry);
+        for (int i = 0; i < 100; i++) {
+            assertThat(jwtService.isTokenValid(jwtService.generateToken("user" + i + "@example.com"))).isTrue();
+        }
+
+        // Caffeine desaloja en segundo plano
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (cacheSize() > 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(cacheSize()).isLessThanOrEqualTo(10);
+    }
+
+    private double cacheSize() {
+        return registry.get("cache.size").tag("cache", "auth.jwt.verified").gauge().value();
+    }
+
+    private double cacheGets(String result) {
+        return registry.get("cache.gets").tag("cache", "auth.jwt.verified").tag("result", result)
+            .functionCounter().count();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.habitleague.auth.service;
+
+import com.example.habitleague.user.model.User;
+import com.example.habitleague.user.model.UserRole;
+import com.example.habitleague.user.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fallos de caché concurrentes en hilos virtuales: la consulta (aquí simulada con una espera)
+ * no debe fijar el hilo virtual a su portador. Se comprueba con el evento JFR
+ * jdk.VirtualThreadPinned, el mismo que reporta -Djdk.tracePinnedThreads.
+ */
+class PrincipalCacheTest {
+
+    private static final int USERS = 20;
+    private static final int REQUESTS = 400;
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @Test
+    void concurrentMissesOnVirtualThreadsDoNotPinAndShareOneLoad() throws Exception {
+        when(userRepository.findByEmail(anyString())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            Thread.sleep(50);
+            return Optional.of(user(invocation.getArgument(0)));
+        });
+        PrincipalCache cache = new PrincipalCache(userRepository, new SimpleMeterRegistry(),
+            new VirtualThreadTaskExecutor("cache-load-"), 1000, 60);
+
+        List<String> pinned = recordPinnedStacks(() -> {
+            try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Optional<User>>> results = new ArrayList<>();
+                for (int i = 0; i < REQUESTS; i++) {
+                    String email = "user" + (i % USERS) + "@example.com";
+                    results.add(requests.submit(() -> {
+                        start.await();
+                        return cache.findByEmail(email);
+                    }));
+                }
+                start.countDown();
+                for (int i = 0; i < REQUESTS; i++) {
+                    assertThat(results.get(i).get()).get().extracting(User::getEmail)
+                        .isEqualTo("user" + (i % USERS) + "@example.com");
+                }
+            }
+        });
+
+        assertThat(pinned).isEmpty();
+        assertThat(queries).hasValue(USERS);
+    }
+
+    @Test
+    void findIfPresentNeverLoadsAndSeesInvalidation() {
+        when(userRepository.findByEmail(anyString())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return Optional.of(user(invocation.getArgument(0)));
+        });
+        PrincipalCache cache = new PrincipalCache(userRepository, new SimpleMeterRegistry(),
+            new VirtualThreadTaskExecutor("cache-load-"), 1000, 60);
+
+        assertThat(cache.findIfPresent("ana@example.com")).isEmpty();
+        assertThat(queries).hasValue(0);
+
+        cache.findByEmail("ana@example.com");
+        assertThat(cache.findIfPresent("ana@example.com")).get().extracting(User::getEmail)
+            .isEqualTo("ana@example.com");
+
+        cache.invalidate("ana@example.com");
+        assertThat(cache.findIfPresent("ana@example.com")).isEmpty();
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void pinningDetectorSeesASleepInsideSynchronized() throws Exception {
+        Object monitor = new Object();
+
+        List<String> pinned = recordPinnedStacks(() -> Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                sleep(50);
+            }
+        }).join());
+
+        assertThat(pinned).isNotEmpty();
+    }
+
+    private static List<String> recordPinnedStacks(Workload workload) throws Exception {
+        List<String> stacks = Collections.synchronizedList(new ArrayList<>());
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(10)).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> stacks.add(describe(event)));
+            recording.startAsync();
+            workload.run();
+            // stop() entrega los eventos pendientes antes de volver
+            recording.stop();
+        }
+        return stacks;
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(sin pila)";
+        }
+        return event.getStackTrace().getFrames().stream()
+            .map(RecordedFrame::getMethod)
+            .map(method -> method.getType().getName() + "." + method.getName())
+            .collect(Collectors.joining("\n  "));
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setId((long) email.hashCode());
+        user.setEmail(email);
+        user.setRole(UserRole.USER);
+        return user;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Workload {
+        void run() throws Exception;
+    }
+}
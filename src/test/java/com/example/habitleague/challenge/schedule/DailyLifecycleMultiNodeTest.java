@@ -0,0 +1,260 @@
+package com.example.habitleague.challenge.schedule;
+
+import com.example.habitleague.HabitleagueApplication;
+import com.example.habitleague.challenge.service.SchedulerLeaseService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dos contextos de la aplicación (dos "réplicas") sobre la misma base de datos compiten
+ * por los shards del ciclo diario.
+ */
+class DailyLifecycleMultiNodeTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Mexico_City");
+    private static final int SHARDS = 8;
+    private static final MutableClock CLOCK = new MutableClock();
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void leaseRunsEachShardOnOneNodeAtATime() throws Exception {
+        LocalDate date = LocalDate.of(2030, 3, 1);
+        Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> runs = new ConcurrentHashMap<>();
+        Set<String> nodesThatWorked = ConcurrentHashMap.newKeySet();
+        AtomicBoolean overlap = new AtomicBoolean(false);
+
+        runConcurrently(List.of(nodeA, nodeB), node -> {
+            SchedulerLeaseService leaseService = node.getBean(SchedulerLeaseService.class);
+            for (int i = 0; i < SHARDS; i++) {
+                String leaseName = "multi-node-test-" + i;
+                if (leaseService.getLastCompletedDate(leaseName).filter(date::equals).isPresent()) {
+                    continue;
+                }
+                leaseService.runWithLease(leaseName, date, () -> {
+                    if (inFlight.computeIfAbsent(leaseName, key -> new AtomicInteger()).incrementAndGet() > 1) {
+                        overlap.set(true);
+                    }
+                    nodesThatWorked.add(leaseService.getNodeId());
+                    runs.computeIfAbsent(leaseName, key -> new AtomicInteger()).incrementAndGet();
+                    sleep(100);
+                    inFlight.get(leaseName).decrementAndGet();
+                    return true;
+                });
+            }
+        });
+
+        assertThat(overlap).isFalse();
+        assertThat(runs).hasSize(SHARDS);
+        assertThat(nodesThatWorked).containsExactlyInAnyOrder("node-a", "node-b");
+        SchedulerLeaseService leaseService = nodeA.getBean(SchedulerLeaseService.class);
+        for (int i = 0; i < SHARDS; i++) {
+            assertThat(leaseService.getLastCompletedDate("multi-node-test-" + i)).contains(date);
+        }
+    }
+
+    @Test
+    void standbyWaitsForCronWindowAndThenCompletesEveryShard() throws Exception {
+        LocalDate yesterday = LocalDate.of(2030, 4, 1);
+        SchedulerLeaseService leaseService = nodeA.getBean(SchedulerLeaseService.class);
+
+        // 00:02 en la zona del negocio: el cron de las 00:05 todavía no ha corrido
+        CLOCK.set(LocalDateTime.of(2030, 4, 2, 0, 2));
+        runConcurrently(List.of(nodeA, nodeB), node -> node.getBean(DailyLifecycleScheduler.class).takeOverPendingShards());
+        for (int i = 0; i < SHARDS; i++) {
+            assertThat(leaseService.getLastCompletedDate("daily-lifecycle-shard-" + i)
+                .filter(completed -> !completed.isBefore(yesterday))).isEmpty();
+        }
+
+        CLOCK.set(LocalDateTime.of(2030, 4, 2, 0, 6));
+        runConcurrently(List.of(nodeA, nodeB), node -> node.getBean(DailyLifecycleScheduler.class).takeOverPendingShards());
+        for (int i = 0; i < SHARDS; i++) {
+            assertThat(leaseService.getLastCompletedDate("daily-lifecycle-shard-" + i)).contains(yesterday);
+        }
+    }
+
+    @Test
+    void standbyTickDoesNotRunShardsHeldBySameNodeCronRun() throws Exception {
+        LocalDate yesterday = LocalDate.of(2030, 7, 1);
+        SchedulerLeaseService leaseService = nodeA.getBean(SchedulerLeaseService.class);
+        CountDownLatch cronStarted = new CountDownLatch(SHARDS);
+        CountDownLatch finishCron = new CountDownLatch(1);
+        CLOCK.set(LocalDateTime.of(2030, 7, 2, 0, 10));
+
+        // La ejecución del cron de node-a tiene todos los shards mientras corre el standby
+        ExecutorService cron = Executors.newFixedThreadPool(SHARDS);
+        try {
+            List<Future<Boolean>> cronRuns = new ArrayList<>();
+            for (int i = 0; i < SHARDS; i++) {
+                String leaseName = "daily-lifecycle-shard-" + i;
+                cronRuns.add(cron.submit(() -> leaseService.runWithLease(leaseName, yesterday, () -> {
+                    cronStarted.countDown();
+                    awaitQuietly(finishCron);
+                    return false;
+                })));
+            }
+            assertThat(cronStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+            nodeA.getBean(DailyLifecycleScheduler.class).takeOverPendingShards();
+            for (int i = 0; i < SHARDS; i++) {
+                assertThat(leaseService.getLastCompletedDate("daily-lifecycle-shard-" + i)
+                    .filter(yesterday::equals)).isEmpty();
+            }
+
+            finishCron.countDown();
+            for (Future<Boolean> run : cronRuns) {
+                assertThat(run.get()).isTrue();
+            }
+        } finally {
+            finishCron.countDown();
+            cron.shutdownNow();
+        }
+
+        // Solo la ejecución del cron registró su resultado
+        for (int i = 0; i < SHARDS; i++) {
+            assertThat(leaseService.getFailedAttempts("daily-lifecycle-shard-" + i, yesterday)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void failedRunsAreCountedPerDate() {
+        SchedulerLeaseService leaseService = nodeB.getBean(SchedulerLeaseService.class);
+        LocalDate date = LocalDate.of(2030, 5, 1);
+
+        leaseService.runWithLease("multi-node-failing", date, () -> false);
+        leaseService.runWithLease("multi-node-failing", date, () -> false);
+        assertThat(leaseService.getFailedAttempts("multi-node-failing", date)).isEqualTo(2);
+        assertThat(leaseService.getLastCompletedDate("multi-node-failing")).isEmpty();
+
+        // Otro día empieza de cero
+        leaseService.runWithLease("multi-node-failing", date.plusDays(1), () -> false);
+        assertThat(leaseService.getFailedAttempts("multi-node-failing", date.plusDays(1))).isEqualTo(1);
+        assertThat(leaseService.getFailedAttempts("multi-node-failing", date)).isZero();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(HabitleagueApplication.class, FixedClockConfig.class)
+            .profiles("test")
+            .run("--server.port=0",
+                "--lifecycle.node-id=" + nodeId,
+                "--lifecycle.shards=" + SHARDS,
+                "--lifecycle.lease.standby-check-ms=3600000");
+    }
+
+    private static void runConcurrently(List<ConfigurableApplicationContext> nodes,
+                                        Consumer<ConfigurableApplicationContext> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(nodes.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = nodes.stream()
+                .<Future<?>>map(node -> pool.submit(() -> {
+                    start.await();
+                    task.accept(node);
+                    return null;
+                }))
+                .toList();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reemplaza el reloj del ciclo diario en ambos nodos (se registra como fuente, no por escaneo)
+     */
+    static class FixedClockConfig {
+
+        @Bean
+        @Primary
+        Clock testLifecycleClock() {
+            return CLOCK;
+        }
+    }
+
+    static class MutableClock extends Clock {
+
+        private volatile Instant instant = Instant.now();
+
+        void set(LocalDateTime localDateTime) {
+            instant = localDateTime.atZone(ZONE).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.habitleague.evidence.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DayBitmapTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+
+    @Test
+    void bitIOfTheArrayIsDayBasePlusI() {
+        DayBitmap bitmap = DayBitmap.empty(BASE);
+        bitmap.set(BASE);
+        bitmap.set(BASE.plusDays(9));
+        bitmap.set(BASE.plusDays(23));
+
+        // Bit i en el byte i >> 3, del menos significativo al más significativo
+        assertThat(bitmap.toByteArray()).containsExactly(0x01, 0x02, (byte) 0x80);
+        DayBitmap copy = new DayBitmap(BASE, bitmap.toByteArray());
+        assertThat(copy.isSet(BASE.plusDays(9))).isTrue();
+        assertThat(copy.isSet(BASE.plusDays(8))).isFalse();
+    }
+
+    @Test
+    void setReportsWhetherTheDayWasNew() {
+        DayBitmap bitmap = DayBitmap.empty(BASE);
+
+        assertThat(bitmap.set(BASE.plusDays(3))).isTrue();
+        assertThat(bitmap.set(BASE.plusDays(3))).isFalse();
+        assertThat(bitmap.cardinality()).isEqualTo(1);
+    }
+
+    @Test
+    void daysOutsideTheBitmapAreNotSet() {
+        DayBitmap bitmap = new DayBitmap(BASE, null);
+
+        assertThat(bitmap.isSet(BASE.minusDays(1))).isFalse();
+        assertThat(bitmap.isSet(BASE.plusDays(1000))).isFalse();
+        assertThat(bitmap.lastSetDay()).isNull();
+        assertThat(bitmap.currentStreak(BASE)).isZero();
+        assertThat(bitmap.longestStreak()).isZero();
+    }
+
+    @Test
+    void settingADayBeforeTheBaseShiftsTheBitmap() {
+        DayBitmap bitmap = DayBitmap.empty(BASE);
+        bitmap.set(BASE);
+        bitmap.set(BASE.plusDays(5));
+
+        assertThat(bitmap.set(BASE.minusDays(10))).isTrue();
+
+        assertThat(bitmap.getBaseDate()).isEqualTo(BASE.minusDays(10));
+        assertThat(bitmap.isSet(BASE.minusDays(10))).isTrue();
+        assertThat(bitmap.isSet(BASE)).isTrue();
+        assertThat(bitmap.isSet(BASE.plusDays(5))).isTrue();
+        assertThat(bitmap.cardinality()).isEqualTo(3);
+    }
+
+    @Test
+    void currentStreakCountsUpToYesterdayWhenTodayIsMissing() {
+        DayBitmap bitmap = DayBitmap.empty(BASE);
+        for (int i = 0; i < 4; i++) {
+            bitmap.set(BASE.plusDays(i));
+        }
+
+        assertThat(bitmap.currentStreak(BASE.plusDays(3))).isEqualTo(4);
+        assertThat(bitmap.currentStreak(BASE.plusDays(4))).isEqualTo(4);
+        assertThat(bitmap.currentStreak(BASE.plusDays(5))).isZero();
+    }
+
+    @Test
+    void matchesASetOfDates() {
+        Random random = new Random(17);
+        for (int round = 0; round < 200; round++) {
+            DayBitmap bitmap = DayBitmap.empty(BASE);
+            TreeSet<LocalDate> days = new TreeSet<>();
+            int count = random.nextInt(60);
+            for (int i = 0; i < count; i++) {
+                // Alrededor de un año, con algunos días anteriores a la fecha base
+                LocalDate day = BASE.plusDays(random.nextInt(400) - 20);
+                assertThat(bitmap.set(day)).isEqualTo(days.add(day));
+            }
+
+            LocalDate from = BASE.minusDays(30);
+            LocalDate to = BASE.plusDays(420);
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                assertThat(bitmap.isSet(day)).as("día %s", day).isEqualTo(days.contains(day));
+            }
+            assertThat(bitmap.cardinality()).isEqualTo(days.size());
+            assertThat(bitmap.lastSetDay()).isEqualTo(days.isEmpty() ? null : days.last());
+            assertThat(bitmap.longestStreak()).isEqualTo(longestStreak(days));
+
+            LocalDate asOf = BASE.plusDays(random.nextInt(400));
+            assertThat(bitmap.currentStreak(asOf)).isEqualTo(currentStreak(days, asOf));
+            LocalDate rangeStart = BASE.plusDays(random.nextInt(200));
+            LocalDate rangeEnd = rangeStart.plusDays(random.nextInt(200) - 10);
+            assertThat(bitmap.missedDays(rangeStart, rangeEnd)).isEqualTo(missedDays(days, rangeStart, rangeEnd));
+        }
+    }
+
+    private static int longestStreak(TreeSet<LocalDate> days) {
+        int longest = 0;
+        int run = 0;
+        LocalDate previous = null;
+        for (LocalDate day : days) {
+            run = previous != null && previous.plusDays(1).equals(day) ? run + 1 : 1;
+            longest = Math.max(longest, run);
+            previous = day;
+        }
+        return longest;
+    }
+
+    private static int currentStreak(TreeSet<LocalDate> days, LocalDate asOf) {
+        LocalDate day = days.contains(asOf) ? asOf : asOf.minusDays(1);
+        int streak = 0;
+        while (days.contains(day)) {
+            streak++;
+            day = day.minusDays(1);
+        }
+        return streak;
+    }
+
+    private static int missedDays(TreeSet<LocalDate> days, LocalDate from, LocalDate to) {
+        int missed = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (!days.contains(day)) {
+                missed++;
+            }
+        }
+        return missed;
+    }
+}
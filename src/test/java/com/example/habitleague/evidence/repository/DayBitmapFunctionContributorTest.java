@@ -0,0 +1,71 @@
+package com.example.habitleague.evidence.repository;
+
+import com.example.habitleague.evidence.model.DayBitmap;
+import com.example.habitleague.evidence.model.EvidenceDayIndex;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * day_bit en SQL debe coincidir con DayBitmap.isSet, también fuera del rango del mapa
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DayBitmapFunctionContributorTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void dayBitMatchesDayBitmap() {
+        DayBitmap bitmap = DayBitmap.empty(BASE);
+        for (int offset : new int[] {0, 1, 7, 8, 9, 15, 16, 30, 63}) {
+            bitmap.set(BASE.plusDays(offset));
+        }
+        entityManager.persist(EvidenceDayIndex.builder()
+            .challengeMemberId(1L)
+            .challengeId(1L)
+            .baseDate(bitmap.getBaseDate())
+            .days(bitmap.toByteArray())
+            .build());
+        entityManager.flush();
+
+        for (int offset = -3; offset < 70; offset++) {
+            LocalDate date = BASE.plusDays(offset);
+            List<Long> matches = entityManager.createQuery(
+                    "SELECT d.challengeMemberId FROM EvidenceDayIndex d WHERE day_bit(d.days, d.baseDate, :date) = 1",
+                    Long.class)
+                .setParameter("date", date)
+                .getResultList();
+            assertThat(!matches.isEmpty()).as("día %s", date).isEqualTo(bitmap.isSet(date));
+        }
+    }
+
+    @Test
+    void emptyBitmapHasNoDays() {
+        entityManager.persist(EvidenceDayIndex.builder()
+            .challengeMemberId(2L)
+            .challengeId(1L)
+            .baseDate(BASE)
+            .build());
+        entityManager.flush();
+
+        Long count = entityManager.createQuery(
+                "SELECT COUNT(d) FROM EvidenceDayIndex d WHERE d.challengeMemberId = 2 " +
+                "AND day_bit(d.days, d.baseDate, :date) = 1", Long.class)
+            .setParameter("date", BASE)
+            .getSingleResult();
+        assertThat(count).isZero();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AIValidationBatcherTest {
+
+    private final List<List<String>> backendCalls = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean failing = new AtomicBoolean(false);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicBoolean blocking = new AtomicBoolean(false);
+    // Aprueba las imágenes cuya URL termina en ".jpg"; puede bloquearse hasta release
+    private final ImageValidationBackend backend = (category, urls) -> {
+        backendCalls.add(List.copyOf(urls));
+        if (blocking.get()) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failing.get()) {
+            throw new IllegalStateException("modelo no disponible");
+        }
+        return urls.stream().map(url -> url.endsWith(".jpg")).toList();
+    };
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<AIValidationBatcher> batchers = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        batchers.forEach(AIValidationBatcher::shutdown);
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheWindow() {
+        AIValidationBatcher batcher = batcher(4, 60_000, 1000);
+
+        List<CompletableFuture<Boolean>> results = submitAll(batcher, ChallengeCategory.FITNESS,
+            "http://img/1.jpg", "http://img/2.png", "http://img/3.jpg", "http://img/4.jpg");
+
+        assertThat(results.stream().map(future -> future.orTimeout(2, TimeUnit.SECONDS).join()))
+            .containsExactly(true, false, true, true);
+        assertThat(backendCalls).containsExactly(
+            List.of("http://img/1.jpg", "http://img/2.png", "http://img/3.jpg", "http://img/4.jpg"));
+    }
+
+    @Test
+    void partialBatchIsSentWhenTheWindowExpires() throws Exception {
+        AIValidationBatcher batcher = batcher(16, 200, 1000);
+
+        List<CompletableFuture<Boolean>> results = submitAll(batcher, ChallengeCategory.FITNESS,
+            "http://img/1.jpg", "http://img/2.jpg", "http://img/3.png");
+
+        Thread.sleep(50);
+        assertThat(results).noneMatch(CompletableFuture::isDone);
+        assertThat(backendCalls).isEmpty();
+
+        assertThat(results.stream().map(future -> future.orTimeout(2, TimeUnit.SECONDS).join()))
+            .containsExactly(true, true, false);
+        assertThat(backendCalls).hasSize(1);
+        assertThat(registry.get("evidence.ai.queue.wait").timer().count()).isEqualTo(3);
+        assertThat(registry.get("evidence.ai.queue.wait").timer().max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(150);
+    }
+
+    @Test
+    void overflowAfterAFullBatchOpensANewWindow() {
+        AIValidationBatcher batcher = batcher(2, 100, 1000);
+
+        List<CompletableFuture<Boolean>> results = submitAll(batcher, ChallengeCategory.FITNESS,
+            "http://img/1.jpg", "http://img/2.jpg", "http://img/3.jpg");
+
+        results.forEach(future -> future.orTimeout(2, TimeUnit.SECONDS).join());
+        assertThat(backendCalls).containsExactly(
+            List.of("http://img/1.jpg", "http://img/2.jpg"), List.of("http://img/3.jpg"));
+        assertThat(registry.get("evidence.ai.batch.size").tag("category", "FITNESS").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    void categoriesAreBatchedSeparately() {
+        AIValidationBatcher batcher = batcher(16, 50, 1000);
+
+        CompletableFuture<Boolean> fitness = batcher.submit(ChallengeCategory.FITNESS, "http://img/1.jpg");
+        CompletableFuture<Boolean> reading = batcher.submit(ChallengeCategory.READING, "http://img/2.jpg");
+
+        assertThat(fitness.orTimeout(2, TimeUnit.SECONDS).join()).isTrue();
+        assertThat(reading.orTimeout(2, TimeUnit.SECONDS).join()).isTrue();
+        assertThat(backendCalls).containsExactlyInAnyOrder(List.of("http://img/1.jpg"), List.of("http://img/2.jpg"));
+    }
+
+    @Test
+    void backendErrorFailsEveryCallerOfTheBatch() {
+        AIValidationBatcher batcher = batcher(2, 60_000, 1000);
+        failing.set(true);
+
+        List<CompletableFuture<Boolean>> results = submitAll(batcher, ChallengeCategory.FITNESS,
+            "http://img/1.jpg", "http://img/2.jpg");
+
+        for (CompletableFuture<Boolean> result : results) {
+            assertThatThrownBy(() -> result.orTimeout(2, TimeUnit.SECONDS).join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void rejectsBeyondMaxPendingAndAcceptsAgainOnceDrained() {
+        AIValidationBatcher batcher = batcher(1, 60_000, 2);
+        blocking.set(true);
+
+        CompletableFuture<Boolean> first = batcher.submit(ChallengeCategory.FITNESS, "http://img/1.jpg");
+        CompletableFuture<Boolean> second = batcher.submit(ChallengeCategory.FITNESS, "http://img/2.jpg");
+        CompletableFuture<Boolean> third = batcher.submit(ChallengeCategory.FITNESS, "http://img/3.jpg");
+
+        assertThat(third).isCompletedExceptionally();
+        assertThatThrownBy(third::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(registry.get("evidence.ai.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.orTimeout(2, TimeUnit.SECONDS).join()).isTrue();
+        assertThat(second.orTimeout(2, TimeUnit.SECONDS).join()).isTrue();
+        assertThat(batcher.submit(ChallengeCategory.FITNESS, "http://img/4.jpg")
+            .orTimeout(2, TimeUnit.SECONDS).join()).isTrue();
+    }
+
+    private AIValidationBatcher batcher(int maxBatchSize, long windowMillis, int maxPending) {
+        AIValidationBatcher batcher = new AIValidationBatcher(backend, registry, maxBatchSize, windowMillis, maxPending, 1);
+        batchers.add(batcher);
+        return batcher;
+    }
+
+    private static List<CompletableFuture<Boolean>> submitAll(AIValidationBatcher batcher, ChallengeCategory category,
+                                                              String... imageUrls) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (String imageUrl : imageUrls) {
+            results.add(batcher.submit(category, imageUrl));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AIValidationServiceTest {
+
+    private final List<List<String>> backendCalls = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean failing = new AtomicBoolean(false);
+    // Aprueba las imágenes cuya URL termina en ".jpg"
+    private final ImageValidationBackend backend = (category, urls) -> {
+        if (failing.get()) {
+            throw new IllegalStateException("modelo no disponible");
+        }
+        backendCalls.add(List.copyOf(urls));
+        return urls.stream().map(url -> url.endsWith(".jpg")).toList();
+    };
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AIValidationBatcher batcher = new AIValidationBatcher(backend, registry, 16, 20, 1000, 1);
+    private final AIValidationService service = new AIValidationService(batcher, registry, 1000, 24);
+
+    @AfterEach
+    void shutdown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void batchSendsEachDistinctImageOnceAndKeepsOrder() {
+        List<Boolean> results = service.validateBatch(
+            List.of("http://img/a.jpg", "http://img/b.png", "http://img/a.jpg"), ChallengeCategory.FITNESS);
+
+        assertThat(results).containsExactly(true, false, true);
+        assertThat(backendCalls).hasSize(1);
+        assertThat(backendCalls.get(0)).containsExactlyInAnyOrder("http://img/a.jpg", "http://img/b.png");
+    }
+
+    @Test
+    void batchReadsAndFillsTheResultCache() {
+        service.validateBatch(List.of("http://img/a.jpg"), ChallengeCategory.FITNESS);
+
+        List<Boolean> results = service.validateBatch(
+            List.of("http://img/a.jpg", "http://img/c.jpg"), ChallengeCategory.FITNESS);
+        assertThat(results).containsExactly(true, true);
+        assertThat(backendCalls).containsExactly(List.of("http://img/a.jpg"), List.of("http://img/c.jpg"));
+
+        // La validación individual reutiliza lo que llenó el lote
+        assertThat(service.validateAsync("http://img/c.jpg", ChallengeCategory.FITNESS).join()).isTrue();
+        assertThat(backendCalls).hasSize(2);
+    }
+
+    @Test
+    void cacheIsPerCategory() {
+        service.validateBatch(List.of("http://img/a.jpg"), ChallengeCategory.FITNESS);
+        service.validateBatch(List.of("http://img/a.jpg"), ChallengeCategory.READING);
+
+        assertThat(backendCalls).hasSize(2);
+    }
+
+    @Test
+    void failedBatchIsNotCached() {
+        failing.set(true);
+        assertThatThrownBy(() -> service.validateBatch(List.of("http://img/a.jpg"), ChallengeCategory.FITNESS))
+            .isInstanceOf(IllegalStateException.class);
+
+        failing.set(false);
+        assertThat(service.validateBatch(List.of("http://img/a.jpg"), ChallengeCategory.FITNESS)).containsExactly(true);
+        assertThat(backendCalls).hasSize(1);
+    }
+}
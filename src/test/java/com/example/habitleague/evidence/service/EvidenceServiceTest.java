@@ -0,0 +1,121 @@
+package com.example.habitleague.evidence.service;
+
+import com.example.habitleague.challenge.model.Challenge;
+import com.example.habitleague.challenge.model.ChallengeMember;
+import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.service.ChallengeSnapshotCache;
+import com.example.habitleague.challenge.service.MembershipService;
+import com.example.habitleague.evidence.dto.SubmitEvidenceRequest;
+import com.example.habitleague.evidence.model.Evidence;
+import com.example.habitleague.evidence.model.EvidenceDayIndex;
+import com.example.habitleague.evidence.repository.EvidenceDayIndexRepository;
+import com.example.habitleague.evidence.repository.EvidenceRepository;
+import com.example.habitleague.shared.exception.ChallengeException;
+import com.example.habitleague.user.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * La JVM corre en UTC (como en el contenedor) y el negocio en America/Mexico_City:
+ * una evidencia de las 23:30 locales cae en el día siguiente en UTC.
+ */
+class EvidenceServiceTest {
+
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("America/Mexico_City");
+    private static final LocalDate EVENING_DAY = LocalDate.of(2030, 3, 10);
+    // 23:30 del 10 de marzo en México = 05:30 del 11 de marzo en UTC
+    private static final LocalDateTime SUBMITTED_LOCAL = EVENING_DAY.atTime(23, 30);
+
+    private final EvidenceRepository evidenceRepository = mock(EvidenceRepository.class);
+    private final ChallengeMemberRepository memberRepository = mock(ChallengeMemberRepository.class);
+    private final EvidenceDayIndexRepository dayIndexRepository = mock(EvidenceDayIndexRepository.class);
+    private final MembershipService membershipService = mock(MembershipService.class);
+
+    private TimeZone originalZone;
+    private EvidenceService service;
+    private EvidenceDayIndex dayIndex;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(ZoneOffset.UTC));
+
+        Clock clock = Clock.fixed(SUBMITTED_LOCAL.atZone(BUSINESS_ZONE).toInstant(), BUSINESS_ZONE);
+        EvidenceDayIndexService dayIndexService = new EvidenceDayIndexService(dayIndexRepository,
+            evidenceRepository, memberRepository, mock(ChallengeRepository.class), clock);
+        service = new EvidenceService(evidenceRepository, memberRepository, mock(ChallengeSnapshotCache.class),
+            membershipService, dayIndexService, mock(ApplicationEventPublisher.class));
+
+        user = new User();
+        user.setId(7L);
+        user.setEmail("ana@example.com");
+        Challenge challenge = Challenge.builder().id(3L).name("Correr").startDate(EVENING_DAY.minusDays(5)).build();
+        ChallengeMember member = ChallengeMember.builder().id(11L).user(user).challenge(challenge)
+            .joinedAt(EVENING_DAY.minusDays(5)).paymentCompleted(true).locationRegistered(true).build();
+        dayIndex = EvidenceDayIndex.builder().challengeMemberId(11L).challengeId(3L)
+            .baseDate(challenge.getStartDate()).currentStreak(0).longestStreak(0).build();
+
+        when(membershipService.isMember(7L, 3L)).thenReturn(true);
+        when(memberRepository.findByUserIdAndChallengeId(7L, 3L)).thenReturn(Optional.of(member));
+        when(dayIndexRepository.findByChallengeMemberIdForUpdate(11L)).thenReturn(Optional.of(dayIndex));
+        when(dayIndexRepository.findByChallengeMemberId(11L)).thenReturn(Optional.of(dayIndex));
+        when(evidenceRepository.findIdsByImageHashSubmittedBefore(anyString(), any(), any())).thenReturn(List.of());
+        when(evidenceRepository.save(any(Evidence.class))).thenAnswer(invocation -> {
+            Evidence evidence = invocation.getArgument(0);
+            evidence.setId(100L);
+            // Lo que escribiría @CreationTimestamp: la hora de la JVM, en UTC
+            evidence.setSubmittedAt(SUBMITTED_LOCAL.atZone(BUSINESS_ZONE)
+                .withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime());
+            return evidence;
+        });
+    }
+
+    @AfterEach
+    void restoreZone() {
+        TimeZone.setDefault(originalZone);
+    }
+
+    @Test
+    void lateEveningSubmissionCountsForTheBusinessDay() {
+        service.submitEvidence(new SubmitEvidenceRequest(3L, "http://img/a.jpg", 19.4, -99.1), user);
+
+        assertThat(dayIndex.toBitmap().isSet(EVENING_DAY)).isTrue();
+        assertThat(dayIndex.toBitmap().isSet(EVENING_DAY.plusDays(1))).isFalse();
+        assertThat(service.hasSubmittedEvidenceToday(user, 3L)).isTrue();
+        // La ventana de imágenes repetidas empieza a la medianoche local (06:00 UTC)
+        verify(evidenceRepository).findIdsByImageHashSubmittedBefore(anyString(),
+            eq(LocalDateTime.of(2030, 3, 10, 6, 0)), any());
+    }
+
+    @Test
+    void secondSubmissionTheSameLocalEveningIsRejected() {
+        service.submitEvidence(new SubmitEvidenceRequest(3L, "http://img/a.jpg", 19.4, -99.1), user);
+
+        assertThatThrownBy(() -> service.submitEvidence(
+            new SubmitEvidenceRequest(3L, "http://img/b.jpg", 19.4, -99.1), user))
+            .isInstanceOf(ChallengeException.class)
+            .hasMessageContaining("Ya enviaste");
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.habitleague.export.service;
+
+import com.example.habitleague.challenge.model.ChallengeCategory;
+import com.example.habitleague.challenge.model.ChallengeStatus;
+import com.example.habitleague.challenge.repository.ChallengeMemberRepository;
+import com.example.habitleague.challenge.repository.ChallengeRepository;
+import com.example.habitleague.challenge.repository.PrizeDistributionRepository;
+import com.example.habitleague.evidence.repository.EvidenceRepository;
+import com.example.habitleague.export.dto.ChallengeExportRow;
+import com.example.habitleague.export.dto.ExportDataset;
+import com.example.habitleague.export.service.NdjsonExportService.ExportSlot;
+import com.example.habitleague.shared.exception.TooManyRequestsException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NdjsonExportServiceTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int SAMPLE_EVERY = 100_000;
+    // Margen para ruido del GC; acumular 1M filas ocuparía cientos de MB
+    private static final long MAX_HEAP_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final ChallengeRepository challengeRepository = mock(ChallengeRepository.class);
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void exportsOneMillionRowsWithConstantHeap() throws IOException {
+        NdjsonExportService service = newService(2, 600);
+        long baseline = usedHeapAfterGc();
+        long[] maxGrowth = {0};
+
+        when(challengeRepository.streamExportRows()).thenReturn(LongStream.rangeClosed(1, ROWS)
+            .mapToObj(id -> {
+                if (id % SAMPLE_EVERY == 0) {
+                    maxGrowth[0] = Math.max(maxGrowth[0], usedHeapAfterGc() - baseline);
+                }
+                return row(id);
+            }));
+
+        CountingOutputStream out = new CountingOutputStream();
+        long rows;
+        try (ExportSlot slot = service.reserve()) {
+            rows = service.export(slot, ExportDataset.CHALLENGES, out);
+        }
+
+        assertThat(rows).isEqualTo(ROWS);
+        assertThat(out.lines).isEqualTo(ROWS);
+        assertThat(maxGrowth[0]).isLessThan(MAX_HEAP_GROWTH_BYTES);
+    }
+
+    @Test
+    void writesOneJsonObjectPerLine() throws IOException {
+        NdjsonExportService service = newService(2, 600);
+        when(challengeRepository.streamExportRows()).thenReturn(LongStream.rangeClosed(1, 3).mapToObj(NdjsonExportServiceTest::row));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportSlot slot = service.reserve()) {
+            assertThat(service.export(slot, ExportDataset.CHALLENGES, out)).isEqualTo(3);
+        }
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(3);
+        for (int i = 0; i < lines.size(); i++) {
+            assertThat(lines.get(i)).startsWith("{\"id\":" + (i + 1) + ",").endsWith("}");
+            JsonNode node = MAPPER.readTree(lines.get(i));
+            assertThat(node.get("name").asText()).isEqualTo("Challenge " + (i + 1));
+            assertThat(node.get("createdById").asLong()).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    void rejectsExportsBeyondTheConcurrencyLimit() {
+        NdjsonExportService service = newService(1, 600);
+
+        ExportSlot slot = service.reserve();
+        assertThatThrownBy(service::reserve).isInstanceOf(TooManyRequestsException.class);
+
+        // Al cerrar el hueco queda libre otra vez; cerrarlo dos veces no libera otro
+        slot.close();
+        slot.close();
+        ExportSlot next = service.reserve();
+        assertThatThrownBy(service::reserve).isInstanceOf(TooManyRequestsException.class);
+        next.close();
+    }
+
+    private NdjsonExportService newService(int maxConcurrent, int timeoutSeconds) {
+        return new NdjsonExportService(challengeRepository,
+            mock(ChallengeMemberRepository.class),
+            mock(EvidenceRepository.class),
+            mock(PrizeDistributionRepository.class),
+            MAPPER,
+            mock(PlatformTransactionManager.class),
+            1000, maxConcurrent, timeoutSeconds);
+    }
+
+    private static ChallengeExportRow row(long id) {
+        return new ChallengeExportRow(id, "Challenge " + id, ChallengeCategory.FITNESS, ChallengeStatus.ACTIVE,
+            BigDecimal.TEN, 30, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31), false,
+            5, BigDecimal.valueOf(50), 5, false, id % 1000);
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Descarta la salida y solo cuenta líneas, como un cliente que lee sin guardar
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.habitleague.location.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoHashTest {
+
+    @Test
+    void encodesKnownPoints() {
+        assertThat(GeoHash.encode(42.6, -5.6, 5)).isEqualTo("ezs42");
+        assertThat(GeoHash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(GeoHash.encode(-12.1, -77.0)).hasSize(GeoHash.MAX_PRECISION);
+    }
+
+    @Test
+    void cellEdgesBelongToTheUpperCell() {
+        // El ecuador y el meridiano de Greenwich son bordes de celda en cualquier precisión
+        assertThat(GeoHash.encode(0, 0, 1)).isEqualTo("s");
+        assertThat(GeoHash.encode(-1e-9, 0, 1)).isEqualTo("k");
+        assertThat(GeoHash.encode(0, -1e-9, 1)).isEqualTo("e");
+        assertThat(GeoHash.encode(-1e-9, -1e-9, 1)).isEqualTo("7");
+    }
+
+    @Test
+    void extremeCoordinatesStayInTheCornerCells() {
+        assertThat(GeoHash.encode(-90, -180, 3)).isEqualTo("000");
+        assertThat(GeoHash.encode(90, 180, 3)).isEqualTo("zzz");
+        assertThat(GeoHash.encode(90, -180, 3)).isEqualTo("bpb");
+        assertThat(GeoHash.encode(-90, 180, 3)).isEqualTo("pbp");
+    }
+
+    @Test
+    void cellSizesHalveWithEachBit() {
+        assertThat(GeoHash.cellWidthDegrees(1)).isEqualTo(45.0);
+        assertThat(GeoHash.cellHeightDegrees(1)).isEqualTo(45.0);
+        assertThat(GeoHash.cellWidthDegrees(2)).isEqualTo(11.25);
+        assertThat(GeoHash.cellHeightDegrees(2)).isEqualTo(5.625);
+    }
+
+    @Test
+    void coveringCellsContainEveryPointWithinTheRadius() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            assertCovered(random, latitude, longitude, radius(random));
+        }
+    }
+
+    @Test
+    void coveringCellsWrapAroundTheAntimeridian() {
+        Random random = new Random(7);
+        for (double longitude : new double[] {179.999, -179.999, 180 - 1e-9, -180}) {
+            for (int i = 0; i < 200; i++) {
+                assertCovered(random, random.nextDouble() * 120 - 60, longitude, radius(random));
+            }
+        }
+    }
+
+    @Test
+    void coveringCellsWorkNearThePoles() {
+        Random random = new Random(11);
+        for (double latitude : new double[] {90, 89.9999, 89.99, 89.5, 88, -88, -89.99, -89.9999, -90}) {
+            for (int i = 0; i < 200; i++) {
+                assertCovered(random, latitude, random.nextDouble() * 360 - 180, radius(random));
+            }
+        }
+    }
+
+    // Radios entre 1 m y 1000 km en escala logarítmica
+    private static double radius(Random random) {
+        return Math.pow(10, random.nextDouble() * 6);
+    }
+
+    private static void assertCovered(Random random, double latitude, double longitude, double radiusMeters) {
+        List<String> cells = GeoHash.coveringCells(latitude, longitude, radiusMeters);
+        for (int j = 0; j < 50; j++) {
+            double[] point = pointWithin(random, latitude, longitude, radiusMeters);
+            String hash = GeoHash.encode(point[0], point[1]);
+            assertThat(cells)
+                .as("(%s, %s) r=%s: punto (%s, %s)", latitude, longitude, radiusMeters, point[0], point[1])
+                .anyMatch(hash::startsWith);
+        }
+    }
+
+    // Punto a una distancia aleatoria (hasta el radio) en un rumbo aleatorio, sobre la esfera
+    private static double[] pointWithin(Random random, double latitude, double longitude, double radiusMeters) {
+        double angular = radiusMeters * random.nextDouble() / GeoDistance.EARTH_RADIUS_METERS;
+        double bearing = random.nextDouble() * 2 * Math.PI;
+        double lat1 = Math.toRadians(latitude);
+        double lng1 = Math.toRadians(longitude);
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(angular)
+            + Math.cos(lat1) * Math.sin(angular) * Math.cos(bearing));
+        double lng2 = lng1 + Math.atan2(Math.sin(bearing) * Math.sin(angular) * Math.cos(lat1),
+            Math.cos(angular) - Math.sin(lat1) * Math.sin(lat2));
+        double lngDegrees = ((Math.toDegrees(lng2) + 540) % 360) - 180;
+        return new double[] {Math.toDegrees(lat2), lngDegrees};
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.habitleague.location.service;
+
+import com.example.habitleague.location.model.GeoDistance;
+import com.example.habitleague.location.model.GeoHash;
+import com.example.habitleague.location.repository.RegisteredLocationRepository;
+import com.example.habitleague.location.repository.RegisteredLocationRepository.IndexedLocationView;
+import com.example.habitleague.location.service.RegisteredLocationIndex.LocationHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Las búsquedas por celdas deben devolver lo mismo que recorrer todas las ubicaciones
+ */
+class RegisteredLocationIndexTest {
+
+    private static final int LOCATIONS = 20_000;
+
+    private final List<IndexedLocationView> views = new ArrayList<>();
+    private RegisteredLocationIndex index;
+
+    @BeforeEach
+    void buildIndex() {
+        Random random = new Random(3);
+        for (long id = 1; id <= LOCATIONS; id++) {
+            double latitude;
+            double longitude;
+            if (id % 4 == 0) {
+                // Una cuarta parte repartida por todo el mapa, incluidos los polos
+                latitude = Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1));
+                longitude = random.nextDouble() * 360 - 180;
+            } else {
+                // El resto concentrado en una ciudad
+                latitude = 19.43 + random.nextGaussian() * 0.2;
+                longitude = -99.13 + random.nextGaussian() * 0.2;
+            }
+            views.add(new View(id, id, id, latitude, longitude, GeoHash.encode(latitude, longitude), id % 2 == 0));
+        }
+
+        RegisteredLocationRepository repository = mock(RegisteredLocationRepository.class);
+        when(repository.findIndexViewsAfter(anyLong())).thenReturn(views);
+        index = new RegisteredLocationIndex(repository, mock(PlatformTransactionManager.class), 2000, 20_000_000);
+        index.rebuild();
+    }
+
+    @Test
+    void withinMatchesBruteForce() {
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            double[] center = center(random, i);
+            double radius = Math.pow(10, 1 + random.nextDouble() * 5.5);
+
+            List<Long> expected = bruteForce(center, false).stream()
+                .filter(hit -> hit.distanceMeters() <= radius)
+                .map(hit -> hit.location().id())
+                .toList();
+            List<Long> actual = index.findWithin(center[0], center[1], radius).stream()
+                .map(hit -> hit.location().id())
+                .toList();
+
+            assertThat(actual).as("centro (%s, %s) r=%s", center[0], center[1], radius)
+                .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void nearestChallengesMatchBruteForce() {
+        Random random = new Random(9);
+        for (int i = 0; i < 200; i++) {
+            double[] center = center(random, i);
+            int k = 1 + random.nextInt(30);
+
+            List<LocationHit> expected = bruteForce(center, true);
+            expected = expected.subList(0, Math.min(k, expected.size()));
+            List<LocationHit> actual = index.findNearestChallenges(center[0], center[1], k, 20_000_000);
+
+            assertThat(actual).as("centro (%s, %s) k=%s", center[0], center[1], k).hasSameSizeAs(expected);
+            for (int j = 0; j < expected.size(); j++) {
+                assertThat(actual.get(j).distanceMeters()).isEqualTo(expected.get(j).distanceMeters());
+            }
+        }
+    }
+
+    @Test
+    void nearestChallengesStopsAtTheMaximumRadius() {
+        List<LocationHit> hits = index.findNearestChallenges(19.43, -99.13, 1_000, 5_000);
+
+        assertThat(hits).isNotEmpty().hasSizeLessThan(1_000);
+        assertThat(hits).allMatch(hit -> hit.distanceMeters() <= 5_000 && hit.location().creator());
+        assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(LocationHit::distanceMeters));
+    }
+
+    // Alterna centros dentro de la ciudad, cerca de los polos y en cualquier punto
+    private static double[] center(Random random, int i) {
+        return switch (i % 3) {
+            case 0 -> new double[] {19.43 + random.nextGaussian() * 0.3, -99.13 + random.nextGaussian() * 0.3};
+            case 1 -> new double[] {(random.nextBoolean() ? 1 : -1) * (85 + random.nextDouble() * 5),
+                random.nextDouble() * 360 - 180};
+            default -> new double[] {random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180};
+        };
+    }
+
+    private List<LocationHit> bruteForce(double[] center, boolean creatorsOnly) {
+        List<LocationHit> hits = new ArrayList<>();
+        for (IndexedLocationView view : views) {
+            if (creatorsOnly && !view.getCreator()) {
+                continue;
+            }
+            double distance = GeoDistance.haversineMeters(center[0], center[1], view.getLatitude(), view.getLongitude());
+            hits.add(new LocationHit(RegisteredLocationIndex.IndexedLocation.from(view), distance));
+        }
+        hits.sort(Comparator.comparingDouble(LocationHit::distanceMeters));
+        return hits;
+    }
+
+    private record View(Long id, Long challengeId, Long userId, Double latitude, Double longitude,
+                        String geohash, Boolean creator) implements IndexedLocationView {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getChallengeId() {
+            return challengeId;
+        }
+
+        @Override
+        public Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public Double getLatitude() {
+            return latitude;
+        }
+
+        @Override
+        public Double getLongitude() {
+            return longitude;
+        }
+
+        @Override
+        public String getGeohash() {
+            return geohash;
+        }
+
+        @Override
+        public Boolean getCreator() {
+            return creator;
+        }
+    }
+}
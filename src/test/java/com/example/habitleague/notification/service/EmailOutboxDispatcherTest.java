@@ -0,0 +1,258 @@
+package com.example.habitleague.notification.service;
+
+import com.example.habitleague.notification.model.OutboxEmail;
+import com.example.habitleague.notification.model.OutboxEmailStatus;
+import com.example.habitleague.notification.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Dispatcher del outbox contra H2 con un JavaMailSender simulado. Sin transacción de test:
+ * cada paso del dispatcher confirma su propia transacción como en producción.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxDispatcherTest {
+
+    private static final long INITIAL_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_SECONDS = 100;
+    private static final int MAX_ATTEMPTS = 4;
+
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    // Cada llamada a send(...) es una conexión SMTP con sus destinatarios
+    private final List<List<String>> connections = Collections.synchronizedList(new ArrayList<>());
+    private volatile Consumer<SimpleMailMessage[]> smtp = messages -> { };
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        doAnswer(invocation -> {
+            SimpleMailMessage[] messages = (SimpleMailMessage[]) invocation.getRawArguments()[0];
+            connections.add(List.of(messages).stream().map(message -> message.getTo()[0]).toList());
+            smtp.accept(messages);
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+    }
+
+    @Test
+    void sendsEachBatchOverOneConnection() {
+        enqueue(7);
+
+        dispatcher(3, 120).dispatch();
+
+        assertThat(connections).extracting(List::size).containsExactly(3, 3, 1);
+        assertThat(outboxRepository.findAll()).allMatch(email ->
+            email.getStatus() == OutboxEmailStatus.SENT && email.getSentAt() != null && email.getClaimedAt() == null);
+    }
+
+    @Test
+    void failedMessageIsRetriedWithExponentialBackoffUntilMaxAttempts() {
+        Long id = enqueue(1).get(0);
+        smtp = messages -> {
+            throw new MailSendException(Map.of(messages[0], new RuntimeException("buzón lleno")));
+        };
+        EmailOutboxDispatcher dispatcher = dispatcher(10, 120);
+
+        // 30 s, 60 s y luego el máximo de 100 s
+        long[] expectedDelays = {30, 60, 100};
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            LocalDateTime before = LocalDateTime.now();
+            dispatcher.dispatch();
+            LocalDateTime after = LocalDateTime.now();
+
+            OutboxEmail email = outboxRepository.findById(id).orElseThrow();
+            assertThat(email.getStatus()).isEqualTo(OutboxEmailStatus.PENDING);
+            assertThat(email.getAttempts()).isEqualTo(attempt);
+            assertThat(email.getLastError()).isEqualTo("buzón lleno");
+            Duration delay = Duration.ofSeconds(expectedDelays[attempt - 1]);
+            assertThat(email.getNextAttemptAt()).isBetween(before.plus(delay), after.plus(delay));
+
+            // Sin esperar el backoff el correo no se vuelve a intentar
+            int calls = connections.size();
+            dispatcher.dispatch();
+            assertThat(connections).hasSize(calls);
+            makeDue(id);
+        }
+
+        dispatcher.dispatch();
+        OutboxEmail email = outboxRepository.findById(id).orElseThrow();
+        assertThat(email.getStatus()).isEqualTo(OutboxEmailStatus.FAILED);
+        assertThat(email.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+    }
+
+    @Test
+    void partialFailureOnlyRetriesTheFailedMessages() {
+        List<Long> ids = enqueue(3);
+        smtp = messages -> {
+            throw new MailSendException(Map.of(messages[1], new RuntimeException("rechazado")));
+        };
+
+        dispatcher(10, 120).dispatch();
+
+        assertThat(outboxRepository.findById(ids.get(0)).orElseThrow().getStatus()).isEqualTo(OutboxEmailStatus.SENT);
+        assertThat(outboxRepository.findById(ids.get(1)).orElseThrow().getStatus()).isEqualTo(OutboxEmailStatus.PENDING);
+        assertThat(outboxRepository.findById(ids.get(2)).orElseThrow().getStatus()).isEqualTo(OutboxEmailStatus.SENT);
+    }
+
+    @Test
+    void wholeBatchFailurePausesTheDispatcher() {
+        List<Long> ids = enqueue(2);
+        smtp = messages -> {
+            throw new MailSendException("conexión rechazada");
+        };
+        EmailOutboxDispatcher dispatcher = dispatcher(10, 120);
+
+        dispatcher.dispatch();
+        ids.forEach(this::makeDue);
+        smtp = messages -> { };
+        dispatcher.dispatch();
+
+        assertThat(connections).hasSize(1);
+        assertThat(outboxRepository.findAll()).allMatch(email -> email.getStatus() == OutboxEmailStatus.PENDING);
+    }
+
+    @Test
+    void sendsAreCappedPerMinute() {
+        enqueue(8);
+        EmailOutboxDispatcher dispatcher = dispatcher(3, 5);
+
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+
+        assertThat(connections).extracting(List::size).containsExactly(3, 2);
+        assertThat(outboxRepository.findAll()).filteredOn(email -> email.getStatus() == OutboxEmailStatus.SENT).hasSize(5);
+    }
+
+    @Test
+    void staleClaimsAreReleasedAndSent() {
+        Long id = enqueue(1).get(0);
+        OutboxEmail email = outboxRepository.findById(id).orElseThrow();
+        email.setStatus(OutboxEmailStatus.SENDING);
+        email.setClaimedAt(LocalDateTime.now().minusHours(1));
+        outboxRepository.save(email);
+
+        dispatcher(10, 120).dispatch();
+
+        assertThat(outboxRepository.findById(id).orElseThrow().getStatus()).isEqualTo(OutboxEmailStatus.SENT);
+    }
+
+    @Test
+    void realSmtpSessionCarriesTheWholeBatchAndReportsRejectedRecipients() throws Exception {
+        List<Long> ids = enqueue(5);
+        OutboxEmail rejected = outboxRepository.findById(ids.get(2)).orElseThrow();
+        rejected.setRecipient("rechazado@example.com");
+        outboxRepository.save(rejected);
+
+        try (SmtpStandIn smtpServer = new SmtpStandIn()) {
+            JavaMailSenderImpl realSender = new JavaMailSenderImpl();
+            realSender.setHost("localhost");
+            realSender.setPort(smtpServer.port());
+            new EmailOutboxDispatcher(outboxRepository, realSender, transactionManager, new SimpleMeterRegistry(),
+                "test@habitleague.local", 10, MAX_ATTEMPTS, 120,
+                INITIAL_BACKOFF_SECONDS, MAX_BACKOFF_SECONDS, 300, 7).dispatch();
+
+            assertThat(smtpServer.connections()).isEqualTo(1);
+            assertThat(smtpServer.recipients()).containsExactly(
+                "user0@example.com", "user1@example.com", "user3@example.com", "user4@example.com");
+        }
+        OutboxEmail retried = outboxRepository.findById(ids.get(2)).orElseThrow();
+        assertThat(retried.getStatus()).isEqualTo(OutboxEmailStatus.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(outboxRepository.findAll()).filteredOn(email -> email.getStatus() == OutboxEmailStatus.SENT).hasSize(4);
+    }
+
+    @Test
+    void concurrentDispatchersSendEachEmailOnce() throws Exception {
+        enqueue(40);
+        Set<String> delivered = ConcurrentHashMap.newKeySet();
+        List<String> duplicates = Collections.synchronizedList(new ArrayList<>());
+        smtp = messages -> {
+            for (SimpleMailMessage message : messages) {
+                if (!delivered.add(message.getTo()[0])) {
+                    duplicates.add(message.getTo()[0]);
+                }
+            }
+            sleep(20);
+        };
+        EmailOutboxDispatcher nodeA = dispatcher(5, 1000);
+        EmailOutboxDispatcher nodeB = dispatcher(5, 1000);
+
+        CompletableFuture.allOf(
+            CompletableFuture.runAsync(nodeA::dispatch),
+            CompletableFuture.runAsync(nodeB::dispatch)).get(30, TimeUnit.SECONDS);
+
+        assertThat(duplicates).isEmpty();
+        assertThat(delivered).hasSize(40);
+        assertThat(outboxRepository.findAll()).allMatch(email -> email.getStatus() == OutboxEmailStatus.SENT);
+    }
+
+    private EmailOutboxDispatcher dispatcher(int batchSize, int maxPerMinute) {
+        return new EmailOutboxDispatcher(outboxRepository, mailSender, transactionManager, new SimpleMeterRegistry(),
+            "test@habitleague.local", batchSize, MAX_ATTEMPTS, maxPerMinute,
+            INITIAL_BACKOFF_SECONDS, MAX_BACKOFF_SECONDS, 300, 7);
+    }
+
+    private List<Long> enqueue(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(outboxRepository.save(OutboxEmail.builder()
+                .recipient("user" + i + "@example.com")
+                .subject("Asunto " + i)
+                .body("Cuerpo " + i)
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .build()).getId());
+        }
+        return ids;
+    }
+
+    private void makeDue(Long id) {
+        OutboxEmail email = outboxRepository.findById(id).orElseThrow();
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(email);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.habitleague.notification.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo en proceso para los tests: acepta todo salvo los destinatarios
+ * que contienen "rechazado" (550) y cuenta conexiones y mensajes recibidos.
+ */
+class SmtpStandIn implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> recipients = Collections.synchronizedList(new ArrayList<>());
+
+    SmtpStandIn() throws IOException {
+        serverSocket = new ServerSocket(0);
+        acceptor = new Thread(this::acceptLoop, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    List<String> recipients() {
+        return List.copyOf(recipients);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                connections.incrementAndGet();
+                session(socket);
+            } catch (IOException e) {
+                // Servidor cerrado o cliente desconectado
+            }
+        }
+    }
+
+    private void session(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        OutputStream out = socket.getOutputStream();
+        reply(out, "220 localhost ESMTP");
+        List<String> accepted = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("EHLO")) {
+                reply(out, "250-localhost\r\n250 OK");
+            } else if (command.startsWith("RCPT TO")) {
+                if (line.contains("rechazado")) {
+                    reply(out, "550 Buzón no disponible");
+                } else {
+                    accepted.add(line.substring(line.indexOf('<') + 1, line.indexOf('>')));
+                    reply(out, "250 OK");
+                }
+            } else if (command.equals("DATA")) {
+                reply(out, "354 Fin con <CRLF>.<CRLF>");
+                while ((line = in.readLine()) != null && !line.equals(".")) {
+                    // Cuerpo del mensaje
+                }
+                recipients.addAll(accepted);
+                accepted.clear();
+                reply(out, "250 OK");
+            } else if (command.startsWith("RSET") || command.startsWith("MAIL FROM")) {
+                accepted.clear();
+                reply(out, "250 OK");
+            } else if (command.startsWith("QUIT")) {
+                reply(out, "221 Adiós");
+                return;
+            } else {
+                reply(out, "250 OK");
+            }
+        }
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}